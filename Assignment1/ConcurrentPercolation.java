@@ -0,0 +1,225 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe variant of Percolation: any number of threads may open sites
+ * while others query isOpen(), isFull() and percolates(), and no call ever
+ * takes a lock.
+ *
+ * As in Percolation there are two virtual nodes:
+ * - one at the top (index 0)
+ * - one at the bottom (index n*n+1)
+ *
+ * Site state is a bitset in an AtomicLongArray, set with compare-and-set, so
+ * exactly one thread wins the opening of a site. Connectivity is a lock-free
+ * union-find over an AtomicIntegerArray: a union links one root under the other
+ * with a single CAS on the root's slot, retrying only if that root changed.
+ * Roots are linked in the order of a fixed random-looking priority of their
+ * index, which keeps trees shallow in expectation and, being a total order,
+ * rules out cycles. find() splits paths with best-effort CAS that may fail
+ * without retrying, so it never waits on another thread.
+ *
+ * A site sets its open bit before it looks at its neighbours, so when two
+ * adjacent sites open concurrently at least one of them sees the other and
+ * makes the union.
+ */
+public class ConcurrentPercolation {
+
+    private final AtomicLongArray sites;    // Bit i is set if site i is open
+    private final AtomicIntegerArray parent; // parent[i] = parent of i, roots point to themselves
+    private final LongAdder openSites;      // Number of open sites, contended by all openers
+    private final int n;                    // Grid dimension (n x n)
+    private final int bottom;               // index of the virtual bottom node
+    private volatile boolean percolates;    // cached once the virtual nodes are connected
+
+    /**
+     * Creates an n-by-n grid with all sites initially blocked.
+     *
+     * @param n the dimension of the grid
+     * @throws IllegalArgumentException if n <= 0
+     */
+    public ConcurrentPercolation(int n) {
+        if (n <= 0) throw new IllegalArgumentException("Grid size must be greater than 0");
+
+        this.n = n;
+        this.bottom = n * n + 1;
+        this.sites = new AtomicLongArray((n * n + 2 + 63) >>> 6);
+        this.parent = new AtomicIntegerArray(n * n + 2);
+        this.openSites = new LongAdder();
+        for (int i = 0; i < n * n + 2; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /**
+     * Opens the site at (row, col) if it is not open already,
+     * and connects it to adjacent open sites.
+     */
+    public void open(int row, int col) {
+        checkBounds(row, col);
+
+        int index = to1D(row, col);
+        if (!markOpen(index)) return; // another thread opened it first
+        openSites.increment();
+
+        if (row == 1) union(index, 0);
+        if (row == n) union(index, bottom);
+        if (row > 1 && isOpen(index - n)) union(index, index - n);
+        if (row < n && isOpen(index + n)) union(index, index + n);
+        if (col > 1 && isOpen(index - 1)) union(index, index - 1);
+        if (col < n && isOpen(index + 1)) union(index, index + 1);
+    }
+
+    /**
+     * Returns true if the site at (row, col) is open.
+     */
+    public boolean isOpen(int row, int col) {
+        checkBounds(row, col);
+        return isOpen(to1D(row, col));
+    }
+
+    /**
+     * Returns true if the site at (row, col) is full,
+     * i.e., it is connected to the virtual top node.
+     */
+    public boolean isFull(int row, int col) {
+        checkBounds(row, col);
+        int index = to1D(row, col);
+        return isOpen(index) && connected(index, 0);
+    }
+
+    /**
+     * Returns the number of open sites in the grid. While other threads are
+     * opening sites this is a snapshot, not an exact count.
+     */
+    public int numberOfOpenSites() {
+        return openSites.intValue();
+    }
+
+    /**
+     * Returns true if the system percolates, i.e., if there is a path
+     * from the virtual top node to the virtual bottom node.
+     */
+    public boolean percolates() {
+        if (!percolates && connected(0, bottom)) percolates = true;
+        return percolates;
+    }
+
+    private boolean isOpen(int index) {
+        return (sites.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the open bit of the site, returning false if it was already set.
+     */
+    private boolean markOpen(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        while (true) {
+            long current = sites.get(word);
+            if ((current & bit) != 0) return false;
+            if (sites.compareAndSet(word, current, current | bit)) return true;
+        }
+    }
+
+    /**
+     * Returns the root of p's set at some moment during the call.
+     */
+    private int find(int p) {
+        int up = parent.get(p);
+        while (up != p) {
+            int grandparent = parent.get(up);
+            parent.compareAndSet(p, up, grandparent); // split the path if nobody moved p meanwhile
+            p = up;
+            up = grandparent;
+        }
+        return p;
+    }
+
+    /**
+     * Returns true if p and q are in the same set. A differing pair of roots is
+     * only trusted once the first one is confirmed to still be a root.
+     */
+    private boolean connected(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) return true;
+            if (parent.get(rootP) == rootP) return false;
+        }
+    }
+
+    /**
+     * Merges the sets containing p and q.
+     */
+    private void union(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) return;
+
+            // Always link the root of lower priority under the other, so links only go up
+            int lower = priority(rootP) < priority(rootQ) ? rootP : rootQ;
+            int higher = lower == rootP ? rootQ : rootP;
+            if (parent.compareAndSet(lower, lower, higher)) return;
+        }
+    }
+
+    /**
+     * Returns the linking priority of a node. Multiplying by an odd constant is
+     * a bijection on ints, so no two nodes share a priority.
+     */
+    private static int priority(int p) {
+        return p * 0x9E3779B9;
+    }
+
+    /**
+     * Checks whether the (row, col) indices are within bounds.
+     */
+    private void checkBounds(int row, int col) {
+        if (row < 1 || row > n || col < 1 || col > n) {
+            throw new IllegalArgumentException("Row and column must be between 1 and " + n);
+        }
+    }
+
+    /**
+     * Maps a 2D (row, col) coordinate to a 1D index in the union-find structure.
+     */
+    private int to1D(int row, int col) {
+        return (row - 1) * n + (col - 1) + 1; // +1 to offset for virtual top node at 0
+    }
+
+    /**
+     * Test client: several threads open random sites of one shared grid until
+     * it percolates, while another thread polls percolates().
+     * Usage: java ConcurrentPercolation n threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int n = Integer.parseInt(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        ConcurrentPercolation grid = new ConcurrentPercolation(n);
+
+        Thread[] openers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            openers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!grid.percolates()) {
+                    grid.open(random.nextInt(1, n + 1), random.nextInt(1, n + 1));
+                }
+            });
+            openers[t].start();
+        }
+
+        long polls = 0;
+        while (!grid.percolates()) polls++;
+        for (Thread opener : openers) opener.join();
+
+        StdOut.println("polls      = " + polls);
+        StdOut.println("open sites = " + grid.numberOfOpenSites());
+        StdOut.println("threshold  = " + (double) grid.numberOfOpenSites() / ((double) n * n));
+    }
+}
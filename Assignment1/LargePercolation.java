@@ -0,0 +1,329 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class models an n-by-n percolation system for grids too large for
+ * Percolation: every index is a long, and all per-site state lives outside the
+ * Java heap, either in direct buffers or in memory-mapped temporary files.
+ *
+ * Like Percolation it uses union-find with two virtual nodes:
+ * - one at the top (index 0)
+ * - one at the bottom (index n*n+1)
+ *
+ * Per site it stores one bit of open/closed state, an 8-byte parent link and a
+ * 1-byte rank. Parent links are stored as parent+1 so that zeroed memory (a
+ * fresh direct buffer or a sparse mapped file) already means "every site is its
+ * own root", and no initialisation pass over billions of sites is needed.
+ */
+public class LargePercolation implements Closeable {
+
+    // Largest n whose parent links, (n*n+2) longs, fit in Integer.MAX_VALUE
+    // segments of 1 GiB: (n*n+2)*8 <= (2^31-1)*2^30. The other regions are smaller.
+    private static final long MAX_N = 536_870_911L;
+
+    private final long n;            // Grid dimension (n x n)
+    private final long bottom;       // index of the virtual bottom node
+    private final Segments open;     // one bit per site, packed in longs
+    private final Segments parent;   // parent+1 per node, 0 for a root
+    private final Segments rank;     // one byte per node
+    private final FileChannel[] channels; // backing files in mapped mode, empty otherwise
+    private final Path[] files;
+    private long openSites;          // Number of open sites
+    private boolean percolates;      // cached once the virtual nodes are connected
+
+    /**
+     * Creates an n-by-n grid with all sites initially blocked, backed by direct
+     * (off-heap) buffers.
+     *
+     * @param n the dimension of the grid
+     * @throws IllegalArgumentException if n <= 0 or n > 536,870,911, beyond
+     *         which the storage cannot be addressed
+     */
+    public LargePercolation(long n) {
+        checkSize(n);
+        this.n = n;
+        this.bottom = n * n + 1;
+        this.open = Segments.allocate(words(bottom + 1) * Long.BYTES);
+        this.parent = Segments.allocate((bottom + 1) * Long.BYTES);
+        this.rank = Segments.allocate(bottom + 1);
+        this.channels = new FileChannel[0];
+        this.files = new Path[0];
+    }
+
+    /**
+     * Creates an n-by-n grid with all sites initially blocked, backed by
+     * memory-mapped temporary files in the given directory. The files are
+     * deleted by close().
+     *
+     * @param n the dimension of the grid
+     * @param directory where the backing files are created
+     * @throws IllegalArgumentException if n <= 0 or n > 536,870,911, beyond
+     *         which the storage cannot be addressed
+     * @throws IOException if the backing files cannot be created or mapped
+     */
+    public LargePercolation(long n, Path directory) throws IOException {
+        checkSize(n);
+        this.n = n;
+        this.bottom = n * n + 1;
+        this.files = new Path[3];
+        this.channels = new FileChannel[3];
+        try {
+            this.open = map(0, directory, "open", words(bottom + 1) * Long.BYTES);
+            this.parent = map(1, directory, "parent", (bottom + 1) * Long.BYTES);
+            this.rank = map(2, directory, "rank", bottom + 1);
+        } catch (Throwable e) {
+            // don't leak the files created before the failure
+            for (int i = 0; i < files.length; i++) {
+                try {
+                    if (channels[i] != null) channels[i].close();
+                    if (files[i] != null) Files.deleteIfExists(files[i]);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void checkSize(long n) {
+        if (n <= 0 || n > MAX_N) {
+            throw new IllegalArgumentException("Grid size must be between 1 and " + MAX_N);
+        }
+    }
+
+    private static long words(long bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private Segments map(int slot, Path directory, String name, long bytes) throws IOException {
+        files[slot] = Files.createTempFile(directory, "percolation-" + name + "-", ".bin");
+        channels[slot] = FileChannel.open(files[slot], StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return Segments.map(channels[slot], bytes);
+    }
+
+    /**
+     * Opens the site at (row, col) if it is not open already,
+     * and connects it to adjacent open sites.
+     */
+    public void open(long row, long col) {
+        checkBounds(row, col);
+
+        long index = to1D(row, col);
+        if (isOpen(index)) return;
+
+        setOpen(index);
+        openSites++;
+
+        // The new site is still its own root, so the unions are chained on that root
+        long root = index;
+        if (row == 1) root = link(root, 0);
+        if (row == n) root = link(root, bottom);
+        if (row > 1 && isOpen(index - n)) root = link(root, index - n);
+        if (row < n && isOpen(index + n)) root = link(root, index + n);
+        if (col > 1 && isOpen(index - 1)) root = link(root, index - 1);
+        if (col < n && isOpen(index + 1)) link(root, index + 1);
+    }
+
+    /**
+     * Returns true if the site at (row, col) is open.
+     */
+    public boolean isOpen(long row, long col) {
+        checkBounds(row, col);
+        return isOpen(to1D(row, col));
+    }
+
+    /**
+     * Returns true if the site at (row, col) is full,
+     * i.e., it is connected to the virtual top node.
+     */
+    public boolean isFull(long row, long col) {
+        checkBounds(row, col);
+        long index = to1D(row, col);
+        return isOpen(index) && find(index) == find(0);
+    }
+
+    /**
+     * Returns the number of open sites in the grid.
+     */
+    public long numberOfOpenSites() {
+        return openSites;
+    }
+
+    /**
+     * Returns true if the system percolates, i.e., if there is a path
+     * from the virtual top node to the virtual bottom node.
+     */
+    public boolean percolates() {
+        if (!percolates) percolates = find(0) == find(bottom);
+        return percolates;
+    }
+
+    /**
+     * Releases the backing files in mapped mode. The mappings themselves are
+     * released by the garbage collector, as Java offers no explicit unmap.
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < channels.length; i++) {
+            channels[i].close();
+            Files.deleteIfExists(files[i]);
+        }
+    }
+
+    private boolean isOpen(long index) {
+        return (open.getLong((index >>> 6) << 3) & (1L << index)) != 0;
+    }
+
+    private void setOpen(long index) {
+        long offset = (index >>> 6) << 3;
+        open.putLong(offset, open.getLong(offset) | (1L << index));
+    }
+
+    private long parentOf(long p) {
+        long stored = parent.getLong(p << 3);
+        return stored == 0 ? p : stored - 1;
+    }
+
+    private void setParent(long p, long q) {
+        parent.putLong(p << 3, q + 1);
+    }
+
+    /**
+     * Returns the root of the set containing p, halving the path on the way.
+     */
+    private long find(long p) {
+        long up = parentOf(p);
+        while (up != p) {
+            long grandparent = parentOf(up);
+            setParent(p, grandparent); // point p at its grandparent
+            p = grandparent;
+            up = parentOf(p);
+        }
+        return p;
+    }
+
+    /**
+     * Merges the set rooted at root with the set containing q by rank and
+     * returns the root of the merged set.
+     */
+    private long link(long root, long q) {
+        long other = find(q);
+        if (root == other) return root;
+
+        byte rankRoot = rank.getByte(root);
+        byte rankOther = rank.getByte(other);
+        if (rankRoot < rankOther) {
+            setParent(root, other);
+            return other;
+        }
+        setParent(other, root);
+        if (rankRoot == rankOther) rank.putByte(root, (byte) (rankRoot + 1));
+        return root;
+    }
+
+    /**
+     * Checks whether the (row, col) indices are within bounds.
+     */
+    private void checkBounds(long row, long col) {
+        if (row < 1 || row > n || col < 1 || col > n) {
+            throw new IllegalArgumentException("Row and column must be between 1 and " + n);
+        }
+    }
+
+    /**
+     * Maps a 2D (row, col) coordinate to a 1D index in the union-find structure.
+     */
+    private long to1D(long row, long col) {
+        return (row - 1) * n + (col - 1) + 1; // +1 to offset for virtual top node at 0
+    }
+
+    /**
+     * A byte-addressed off-heap region split into buffers of at most 1 GiB,
+     * since a single ByteBuffer is limited to 2^31 - 1 bytes. Segment sizes are
+     * multiples of 8, so a long never straddles two segments.
+     */
+    private static final class Segments {
+        private static final int SHIFT = 30;
+        private static final long MASK = (1L << SHIFT) - 1;
+
+        private final ByteBuffer[] buffers;
+
+        private Segments(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        static Segments allocate(long bytes) {
+            ByteBuffer[] buffers = new ByteBuffer[count(bytes)];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.allocateDirect(size(bytes, i)).order(ByteOrder.nativeOrder());
+            }
+            return new Segments(buffers);
+        }
+
+        static Segments map(FileChannel channel, long bytes) throws IOException {
+            ByteBuffer[] buffers = new ByteBuffer[count(bytes)];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SHIFT, size(bytes, i))
+                                    .order(ByteOrder.nativeOrder());
+            }
+            return new Segments(buffers);
+        }
+
+        private static int count(long bytes) {
+            return (int) ((bytes + MASK) >>> SHIFT);
+        }
+
+        private static int size(long bytes, int segment) {
+            return (int) Math.min(1L << SHIFT, bytes - ((long) segment << SHIFT));
+        }
+
+        long getLong(long offset) {
+            return buffers[(int) (offset >>> SHIFT)].getLong((int) (offset & MASK));
+        }
+
+        void putLong(long offset, long value) {
+            buffers[(int) (offset >>> SHIFT)].putLong((int) (offset & MASK), value);
+        }
+
+        byte getByte(long offset) {
+            return buffers[(int) (offset >>> SHIFT)].get((int) (offset & MASK));
+        }
+
+        void putByte(long offset, byte value) {
+            buffers[(int) (offset >>> SHIFT)].put((int) (offset & MASK), value);
+        }
+    }
+
+    /**
+     * Test client: opens random sites until the grid percolates and prints the
+     * threshold. Usage: java LargePercolation n [directory]
+     */
+    public static void main(String[] args) throws IOException {
+        long n = Long.parseLong(args[0]);
+
+        try (LargePercolation p = args.length > 1
+                ? new LargePercolation(n, Paths.get(args[1]))
+                : new LargePercolation(n)) {
+            while (!p.percolates()) {
+                long row, col;
+                do {
+                    row = 1 + StdRandom.uniformLong(n);
+                    col = 1 + StdRandom.uniformLong(n);
+                } while (p.isOpen(row, col));
+                p.open(row, col);
+            }
+            StdOut.println("open sites = " + p.numberOfOpenSites());
+            StdOut.println("threshold  = " + (double) p.numberOfOpenSites() / ((double) n * n));
+        }
+    }
+}
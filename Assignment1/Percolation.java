@@ -1,19 +1,21 @@
-import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.util.Arrays;
 
 /**
  * This class models an n-by-n percolation system using the
- * Weighted Quick Union-Find data structure with two virtual nodes:
+ * PercolationUF union-find kernel with two virtual nodes:
  * - one at the top (index 0)
  * - one at the bottom (index n*n+1)
  * 
  * A site is either blocked or open. The system percolates when there's
  * a path from any open site in the top row to any open site in the bottom row.
+ * 
+ * Site state is packed one bit per site in a long[], so neighbour checks in
+ * open() are word-level bit tests over a memory area 8x smaller than a boolean[].
  */
 public class Percolation {
 
-    private final boolean[] sites;           // Tracks if each site is open (true) or blocked (false)
-    private final WeightedQuickUnionUF uf;   // Union-Find data structure for connectivity
+    private final long[] sites;              // Bit i is set if site i is open, clear if blocked
+    private final PercolationUF uf;          // Union-Find data structure for connectivity
     private final int n;                     // Grid dimension (n x n)
     private int openSites;                   // Number of open sites
 
@@ -27,11 +29,21 @@ public class Percolation {
         if (n <= 0) throw new IllegalArgumentException("Grid size must be greater than 0");
 
         this.n = n;
-        this.uf = new WeightedQuickUnionUF(n * n + 2); // includes two virtual nodes (top and bottom)
-        this.sites = new boolean[n * n + 2];           // one extra at beginning (0) and end (n*n+1)
+        this.uf = new PercolationUF(n);                // includes two virtual nodes (top and bottom)
+        this.sites = new long[(n * n + 2 + 63) >>> 6]; // one extra bit at beginning (0) and end (n*n+1)
         this.openSites = 0;                            // initially, no open sites
     }
 
+    /**
+     * Blocks every site again, reusing the existing arrays, so one instance
+     * can run many trials without allocating.
+     */
+    public void reset() {
+        Arrays.fill(sites, 0L);
+        uf.reset();
+        openSites = 0;
+    }
+
     /**
      * Opens the site at (row, col) if it is not open already,
      * and connects it to adjacent open sites.
@@ -42,32 +54,36 @@ public class Percolation {
         int index = to1D(row, col); // map 2D to 1D
 
         // Only act if the site is currently blocked
-        if (!sites[index]) {
-            sites[index] = true;  // mark site as open
+        if (!isOpen(index)) {
+            sites[index >>> 6] |= 1L << index; // mark site as open
             openSites++;          // increment open site count
 
+            // The new site is still its own root, so the unions can be chained
+            // on that root without finding it again
+            int root = index;
+
             // Connect to virtual top node if it's in the top row
             if (row == 1) {
-                uf.union(index, 0);
+                root = uf.link(root, uf.top());
             }
 
             // Connect to virtual bottom node if it's in the bottom row
             if (row == n) {
-                uf.union(index, n * n + 1);
+                root = uf.link(root, uf.bottom());
             }
 
             // Connect to open neighbors (up, down, left, right) if they exist
-            if (row > 1 && isOpen(row - 1, col)) {
-                uf.union(index, to1D(row - 1, col));
+            if (row > 1 && isOpen(index - n)) {
+                root = uf.link(root, index - n);
             }
-            if (row < n && isOpen(row + 1, col)) {
-                uf.union(index, to1D(row + 1, col));
+            if (row < n && isOpen(index + n)) {
+                root = uf.link(root, index + n);
             }
-            if (col > 1 && isOpen(row, col - 1)) {
-                uf.union(index, to1D(row, col - 1));
+            if (col > 1 && isOpen(index - 1)) {
+                root = uf.link(root, index - 1);
             }
-            if (col < n && isOpen(row, col + 1)) {
-                uf.union(index, to1D(row, col + 1));
+            if (col < n && isOpen(index + 1)) {
+                uf.link(root, index + 1);
             }
         }
     }
@@ -77,7 +93,14 @@ public class Percolation {
      */
     public boolean isOpen(int row, int col) {
         checkBounds(row, col);
-        return sites[to1D(row, col)];
+        return isOpen(to1D(row, col));
+    }
+
+    /**
+     * Returns true if the site with the given 1D index is open.
+     */
+    private boolean isOpen(int index) {
+        return (sites[index >>> 6] & (1L << index)) != 0; // shift uses the low 6 bits of index
     }
 
     /**
@@ -86,7 +109,7 @@ public class Percolation {
      */
     public boolean isFull(int row, int col) {
         checkBounds(row, col);
-        return isOpen(row, col) && uf.connected(to1D(row, col), 0);
+        return isOpen(row, col) && uf.connectedToTop(to1D(row, col));
     }
 
     /**
@@ -101,7 +124,7 @@ public class Percolation {
      * from the virtual top node to the virtual bottom node.
      */
     public boolean percolates() {
-        return uf.connected(0, n * n + 1);
+        return uf.percolates();
     }
 
     /**
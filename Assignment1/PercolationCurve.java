@@ -0,0 +1,180 @@
+import edu.princeton.cs.algs4.StdIn;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class estimates the whole spanning-probability curve of an n-by-n
+ * percolation grid using the Newman–Ziff algorithm.
+ *
+ * Each trial opens the n*n sites in the order of one random permutation, so no
+ * site is ever picked twice and no retry loop is needed. The step k at which the
+ * system first percolates is recorded; across trials this gives the
+ * microcanonical curve P(k) = probability of percolating with k open sites,
+ * which is then convolved with the binomial distribution to get P(p) for any
+ * site-vacancy probability p.
+ */
+public class PercolationCurve {
+
+    private final int n;                // Grid dimension (n x n)
+    private final int trials;           // Number of trials performed
+    private final double[] spanning;    // spanning[k] = fraction of trials percolating with k open sites
+    private final double[] thresholds;  // Fraction of open sites at percolation, per trial
+
+    /**
+     * Perform `trials` Newman–Ziff sweeps on an `n`-by-`n` percolation grid.
+     *
+     * @param n the dimension of the grid
+     * @param trials number of independent trials to perform
+     * @param seed seed of the random permutations
+     * @throws IllegalArgumentException if n <= 0 or trials <= 0
+     */
+    public PercolationCurve(int n, int trials, long seed) {
+        if (n <= 0 || trials <= 0) {
+            throw new IllegalArgumentException("Grid size and number of trials must be > 0");
+        }
+
+        this.n = n;
+        this.trials = trials;
+        this.thresholds = new double[trials];
+
+        int sites = n * n;
+        int[] order = new int[sites];   // permutation of the sites, reshuffled every trial
+        int[] counts = new int[sites + 1]; // counts[k] = trials that first percolated at step k
+        for (int s = 0; s < sites; s++) order[s] = s;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Percolation grid = new Percolation(n); // reset and reused by every trial
+        for (int t = 0; t < trials; t++) {
+            shuffle(order, random);
+            int k = sweep(grid, order);
+            counts[k]++;
+            thresholds[t] = (double) k / sites;
+        }
+
+        // Turn the histogram of percolation steps into the cumulative curve P(k)
+        spanning = new double[sites + 1];
+        int percolated = 0;
+        for (int k = 0; k <= sites; k++) {
+            percolated += counts[k];
+            spanning[k] = (double) percolated / trials;
+        }
+    }
+
+    /**
+     * Opens the sites of a reset grid in the given order and returns the number
+     * of open sites at the moment the system first percolates.
+     */
+    private int sweep(Percolation p, int[] order) {
+        p.reset();
+        int k = 0;
+        while (!p.percolates()) {
+            int site = order[k++];
+            p.open(site / n + 1, site % n + 1); // each site appears once, so it is always blocked here
+        }
+        return k;
+    }
+
+    /**
+     * Fisher–Yates shuffle of the given array.
+     */
+    private static void shuffle(int[] a, SplittableRandom random) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = a[i];
+            a[i] = a[j];
+            a[j] = swap;
+        }
+    }
+
+    /**
+     * Returns the microcanonical curve: element k is the estimated probability
+     * that the system percolates once exactly k sites are open.
+     */
+    public double[] spanningCurve() {
+        return spanning.clone();
+    }
+
+    /**
+     * Returns the estimated probability that the system percolates when every
+     * site is open independently with probability p.
+     *
+     * @throws IllegalArgumentException unless 0 <= p <= 1
+     */
+    public double spanningProbability(double p) {
+        if (!(p >= 0.0 && p <= 1.0)) throw new IllegalArgumentException("p must be between 0 and 1");
+
+        int sites = n * n;
+        if (p == 0.0) return spanning[0];
+        if (p == 1.0) return spanning[sites];
+
+        // Binomial weights B(sites, k, p) relative to the mode, in two passes outward
+        // from it to stay in range. The weights fall off on both sides, so each pass
+        // stops once they no longer change the total, after O(sqrt(sites)) terms.
+        int mode = (int) Math.min(sites, Math.floor((sites + 1) * p));
+        double ratio = p / (1.0 - p);
+        double total = 1.0;
+        double sum = spanning[mode];
+        double weight = 1.0;
+        for (int k = mode + 1; k <= sites; k++) {
+            weight = weight * ratio * (sites - k + 1) / k;
+            if (total + weight == total) break;
+            total += weight;
+            sum += weight * spanning[k];
+        }
+        weight = 1.0;
+        for (int k = mode - 1; k >= 0; k--) {
+            weight = weight / ratio * (k + 1) / (sites - k);
+            if (total + weight == total) break;
+            total += weight;
+            sum += weight * spanning[k];
+        }
+        return sum / total;
+    }
+
+    // Returns the sample mean of percolation threshold
+    public double mean() {
+        double sum = 0.0;
+        for (double x : thresholds) sum += x;
+        return sum / trials;
+    }
+
+    // Returns the sample standard deviation of percolation threshold
+    public double stddev() {
+        if (trials == 1) return Double.NaN;
+        double mean = mean();
+        double sum = 0.0;
+        for (double x : thresholds) sum += (x - mean) * (x - mean);
+        return Math.sqrt(sum / (trials - 1));
+    }
+
+    // Returns the low endpoint of the 95% confidence interval
+    public double confidenceLo() {
+        return mean() - 1.96 * stddev() / Math.sqrt(trials);
+    }
+
+    // Returns the high endpoint of the 95% confidence interval
+    public double confidenceHi() {
+        return mean() + 1.96 * stddev() / Math.sqrt(trials);
+    }
+
+    /**
+     * Test client. Expects grid size `n` and number of trials on standard input,
+     * prints the threshold estimate and a coarse table of P(p).
+     */
+    public static void main(String[] args) {
+        int n = StdIn.readInt();      // read grid size
+        int trials = StdIn.readInt(); // read number of trials
+
+        PercolationCurve curve = new PercolationCurve(n, trials, 42L);
+        StdOut.println("mean                    = " + curve.mean());
+        StdOut.println("stddev                  = " + curve.stddev());
+        StdOut.println("95% confidence interval = [" +
+                       curve.confidenceLo() + ", " + curve.confidenceHi() + "]");
+
+        for (int i = 50; i <= 70; i += 2) {
+            double p = i / 100.0;
+            StdOut.println("P(" + p + ") = " + curve.spanningProbability(p));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Optional instrumentation of the percolation hot paths.
+ *
+ * Metrics are switched on for the whole JVM with -Dpercolation.metrics=true.
+ * ENABLED is a static final constant, so when it is false the JIT folds every
+ * "if (PercolationMetrics.ENABLED)" guard in PercolationUF and PercolationStats
+ * away together with the counting it protects, and the instrumentation can stay
+ * compiled in for production runs.
+ *
+ * When enabled it counts union-find link() and find() calls, the total number
+ * of parent links followed by find(), the random picks PercolationStats rejects
+ * because the site was already open, and the time per trial, and it keeps a
+ * histogram of open-site fractions at percolation with bins of width 0.01.
+ * Counters are LongAdders so parallel trials do not contend on them. Every
+ * trial is also committed as a JFR event, "percolation.Trial".
+ */
+public final class PercolationMetrics {
+
+    /** True if the JVM was started with -Dpercolation.metrics=true. */
+    public static final boolean ENABLED = Boolean.getBoolean("percolation.metrics");
+
+    private static final int BINS = 101; // fractions 0.00, 0.01, ..., 1.00
+
+    private static final LongAdder UNIONS = new LongAdder();
+    private static final LongAdder FINDS = new LongAdder();
+    private static final LongAdder FIND_STEPS = new LongAdder();
+    private static final LongAdder REJECTED_PICKS = new LongAdder();
+    private static final LongAdder TRIALS = new LongAdder();
+    private static final LongAdder TRIAL_NANOS = new LongAdder();
+    private static final AtomicLongArray HISTOGRAM = new AtomicLongArray(BINS);
+
+    private PercolationMetrics() { }
+
+    /**
+     * JFR event committed once per trial of PercolationStats.
+     */
+    @Name("percolation.Trial")
+    @Label("Percolation Trial")
+    @Category("Percolation")
+    static final class TrialEvent extends Event {
+        @Label("Grid Size")
+        int gridSize;
+
+        @Label("Threshold")
+        double threshold;
+
+        @Label("Rejected Picks")
+        long rejectedPicks;
+
+        @Label("Trial Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long trialTime;
+
+        transient long startNanos;
+    }
+
+    // Records one call of PercolationUF.link()
+    static void recordUnion() {
+        UNIONS.increment();
+    }
+
+    // Records one call of PercolationUF.find() that followed the given number of links
+    static void recordFind(int steps) {
+        FINDS.increment();
+        FIND_STEPS.add(steps);
+    }
+
+    // Starts timing a trial; only called when ENABLED
+    static TrialEvent beginTrial() {
+        TrialEvent event = new TrialEvent();
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+
+    // Finishes a trial started by beginTrial()
+    static void endTrial(TrialEvent event, int n, double threshold, long rejectedPicks) {
+        long nanos = System.nanoTime() - event.startNanos;
+        TRIALS.increment();
+        TRIAL_NANOS.add(nanos);
+        REJECTED_PICKS.add(rejectedPicks);
+        HISTOGRAM.incrementAndGet((int) Math.round(threshold * (BINS - 1)));
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.gridSize = n;
+            event.threshold = threshold;
+            event.rejectedPicks = rejectedPicks;
+            event.trialTime = nanos;
+            event.commit();
+        }
+    }
+
+    // Returns the number of union-find link() calls
+    public static long unions() {
+        return UNIONS.sum();
+    }
+
+    // Returns the number of union-find find() calls
+    public static long finds() {
+        return FINDS.sum();
+    }
+
+    // Returns the mean number of parent links followed per find()
+    public static double meanFindPathLength() {
+        long finds = FINDS.sum();
+        return finds == 0 ? 0.0 : (double) FIND_STEPS.sum() / finds;
+    }
+
+    // Returns the number of random picks rejected because the site was already open
+    public static long rejectedPicks() {
+        return REJECTED_PICKS.sum();
+    }
+
+    // Returns the number of trials recorded
+    public static long trials() {
+        return TRIALS.sum();
+    }
+
+    // Returns the mean wall-clock time per trial, in nanoseconds
+    public static double meanTrialNanos() {
+        long trials = TRIALS.sum();
+        return trials == 0 ? 0.0 : (double) TRIAL_NANOS.sum() / trials;
+    }
+
+    /**
+     * Returns the histogram of open-site fractions at percolation: element i
+     * counts the trials whose threshold rounds to i / 100.
+     */
+    public static long[] thresholdHistogram() {
+        long[] copy = new long[BINS];
+        for (int i = 0; i < BINS; i++) {
+            copy[i] = HISTOGRAM.get(i);
+        }
+        return copy;
+    }
+
+    // Clears every counter and the histogram
+    public static void reset() {
+        UNIONS.reset();
+        FINDS.reset();
+        FIND_STEPS.reset();
+        REJECTED_PICKS.reset();
+        TRIALS.reset();
+        TRIAL_NANOS.reset();
+        for (int i = 0; i < BINS; i++) {
+            HISTOGRAM.set(i, 0);
+        }
+    }
+
+    /**
+     * Prints all metrics to standard output.
+     */
+    public static void print() {
+        StdOut.println("trials                  = " + trials());
+        StdOut.println("mean trial time (ms)    = " + meanTrialNanos() / 1e6);
+        StdOut.println("unions                  = " + unions());
+        StdOut.println("finds                   = " + finds());
+        StdOut.println("mean find path length   = " + meanFindPathLength());
+        StdOut.println("rejected picks          = " + rejectedPicks());
+
+        long[] histogram = thresholdHistogram();
+        for (int i = 0; i < BINS; i++) {
+            if (histogram[i] > 0) {
+                StdOut.println("threshold " + String.format("%.2f", i / (double) (BINS - 1)) + "          = " + histogram[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+import java.util.Arrays;
+
+/**
+ * A union-find kernel specialised for percolation grids.
+ *
+ * Elements are the n*n sites plus two virtual nodes:
+ * - the top node at index 0
+ * - the bottom node at index n*n+1
+ *
+ * The parent links live in one array, and a root stores -(rank + 1) in its own
+ * slot instead of pointing at itself, so no separate rank array is needed. Grids
+ * with n <= 181 fit every index in a short[], halving the parent storage; larger
+ * grids use an int[]. find() uses path halving so paths shrink on every lookup
+ * without a second pass. link() fuses the find of one side with the union, so open() can
+ * chain the unions with its neighbours without finding the new site again.
+ * Once the two virtual nodes share a root the answer to percolates() is cached,
+ * since a grid never stops percolating; until then it costs two short finds.
+ */
+public class PercolationUF {
+
+    private static final int MAX_NARROW_N = 181; // largest n with n*n+2 <= Short.MAX_VALUE
+
+    private final int[] parent;  // parent[i] = parent of i, or -(rank + 1) for a root; null if narrow
+    private final short[] narrow; // same encoding for small grids; null otherwise
+    private final int bottom;    // index of the virtual bottom node
+    private boolean percolates;  // cached once the virtual nodes are connected
+
+    /**
+     * Creates the union-find structure for an n-by-n grid, every site in its own set.
+     *
+     * @param n the dimension of the grid
+     * @throws IllegalArgumentException if n <= 0
+     */
+    public PercolationUF(int n) {
+        if (n <= 0) throw new IllegalArgumentException("Grid size must be greater than 0");
+
+        int count = n * n + 2;
+        this.bottom = count - 1;
+        if (n <= MAX_NARROW_N) {
+            this.parent = null;
+            this.narrow = new short[count];
+        } else {
+            this.parent = new int[count];
+            this.narrow = null;
+        }
+        reset();
+    }
+
+    /**
+     * Puts every node back in its own set, reusing the existing array.
+     */
+    public void reset() {
+        if (narrow != null) Arrays.fill(narrow, (short) -1); // every node is a root of rank 0
+        else Arrays.fill(parent, -1);
+        percolates = false;
+    }
+
+    /**
+     * Returns the index of the virtual top node.
+     */
+    public int top() {
+        return 0;
+    }
+
+    /**
+     * Returns the index of the virtual bottom node.
+     */
+    public int bottom() {
+        return bottom;
+    }
+
+    /**
+     * Returns the root of the set containing p, halving the path on the way.
+     */
+    public int find(int p) {
+        if (narrow != null) return findNarrow(p);
+
+        int[] parent = this.parent;
+        int steps = 0; // only read when metrics are enabled
+        int up = parent[p];
+        while (up >= 0) {
+            int grandparent = parent[up];
+            if (grandparent < 0) {
+                p = up;
+                steps++;
+                break;
+            }
+            parent[p] = grandparent; // point p at its grandparent
+            p = grandparent;
+            up = parent[p];
+            steps += 2;
+        }
+        if (PercolationMetrics.ENABLED) PercolationMetrics.recordFind(steps);
+        return p;
+    }
+
+    private int findNarrow(int p) {
+        short[] parent = this.narrow;
+        int steps = 0; // only read when metrics are enabled
+        int up = parent[p];
+        while (up >= 0) {
+            short grandparent = parent[up];
+            if (grandparent < 0) {
+                p = up;
+                steps++;
+                break;
+            }
+            parent[p] = grandparent; // point p at its grandparent
+            p = grandparent;
+            up = parent[p];
+            steps += 2;
+        }
+        if (PercolationMetrics.ENABLED) PercolationMetrics.recordFind(steps);
+        return p;
+    }
+
+    /**
+     * Returns true if p and q are in the same set.
+     */
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * Merges the sets containing p and q and returns the root of the merged set.
+     */
+    public int union(int p, int q) {
+        return link(find(p), q);
+    }
+
+    /**
+     * Merges the set rooted at root with the set containing q and returns the
+     * root of the merged set. The caller guarantees that root is a root, which
+     * saves a find when several unions are chained on the same site.
+     */
+    public int link(int root, int q) {
+        if (PercolationMetrics.ENABLED) PercolationMetrics.recordUnion();
+        int other = find(q);
+        if (root == other) return root;
+
+        // Union by rank: hang the shallower tree below the deeper one.
+        // Roots hold -(rank + 1), so the more negative slot is the deeper tree.
+        int rootSlot = slot(root);
+        int otherSlot = slot(other);
+        if (rootSlot > otherSlot) {
+            setSlot(root, other);
+            return other;
+        }
+        setSlot(other, root);
+        if (rootSlot == otherSlot) setSlot(root, rootSlot - 1);
+        return root;
+    }
+
+    private int slot(int i) {
+        return narrow != null ? narrow[i] : parent[i];
+    }
+
+    private void setSlot(int i, int value) {
+        if (narrow != null) narrow[i] = (short) value;
+        else parent[i] = value;
+    }
+
+    /**
+     * Returns true if p is connected to the virtual top node.
+     */
+    public boolean connectedToTop(int p) {
+        return find(p) == find(0);
+    }
+
+    /**
+     * Returns true if the virtual top and bottom nodes are connected.
+     */
+    public boolean percolates() {
+        if (!percolates) percolates = find(0) == find(bottom);
+        return percolates;
+    }
+
+    /**
+     * Times the kernel against algs4's WeightedQuickUnionUF on the same random
+     * sequence of unions and connectivity queries.
+     * Usage: java PercolationUF n operations
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int count = n * n + 2;
+
+        int[] p = new int[operations];
+        int[] q = new int[operations];
+        for (int i = 0; i < operations; i++) {
+            p[i] = StdRandom.uniformInt(count);
+            q[i] = StdRandom.uniformInt(count);
+        }
+
+        Stopwatch timer = new Stopwatch();
+        WeightedQuickUnionUF reference = new WeightedQuickUnionUF(count);
+        int hits = 0;
+        for (int i = 0; i < operations; i++) {
+            reference.union(p[i], q[i]);
+            if (reference.find(q[i]) == reference.find(0)) hits++;
+        }
+        StdOut.println("WeightedQuickUnionUF: " + timer.elapsedTime() + "s (" + hits + " hits)");
+
+        timer = new Stopwatch();
+        PercolationUF kernel = new PercolationUF(n);
+        hits = 0;
+        for (int i = 0; i < operations; i++) {
+            kernel.union(p[i], q[i]);
+            if (kernel.connectedToTop(q[i])) hits++;
+        }
+        StdOut.println("PercolationUF:        " + timer.elapsedTime() + "s (" + hits + " hits)");
+    }
+}
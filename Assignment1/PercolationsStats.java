@@ -3,6 +3,15 @@ import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * This class performs a series of percolation experiments (trials) on an n-by-n grid.
  * It calculates the mean, standard deviation, and 95% confidence interval of the
@@ -10,11 +19,14 @@ import edu.princeton.cs.algs4.StdOut;
  */
 public class PercolationStats {
 
+    private static final int BATCH_SIZE = 64; // trials per batch of the adaptive mode
+
     // Cached statistics after running all trials
     private final double mean_value;
     private final double stddev_value;
     private final double confidenceLo_value;
     private final double confidenceHi_value;
+    private final int trials_value;
 
     /**
      * Perform `trials` independent experiments on an `n`-by-`n` percolation grid.
@@ -24,40 +36,368 @@ public class PercolationStats {
      * @throws IllegalArgumentException if n <= 0 or trials <= 0
      */
     public PercolationStats(int n, int trials) {
+        this(runTrials(n, trials));
+    }
+
+    /**
+     * Perform `trials` independent experiments on an `n`-by-`n` percolation grid,
+     * spreading them over `threads` worker threads of a fork-join pool.
+     * 
+     * Trial i always draws from a random stream derived from (seed, i), so a fixed
+     * seed gives the same statistics no matter how many threads are used.
+     * 
+     * @param n the dimension of the grid
+     * @param trials number of independent trials to perform
+     * @param seed seed of the whole run
+     * @param threads number of worker threads
+     * @throws IllegalArgumentException if n <= 0, trials <= 0 or threads <= 0
+     */
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(runTrials(n, trials, seed, threads));
+    }
+
+    /**
+     * Computes the cached statistics from the thresholds of all trials.
+     */
+    private PercolationStats(double[] thresholds) {
+        // Compute statistical results using helper class StdStats
+        this(thresholds.length, StdStats.mean(thresholds), StdStats.stddev(thresholds));
+    }
+
+    /**
+     * Caches the given statistics and derives the 95% confidence interval.
+     */
+    private PercolationStats(int trials, double mean, double stddev) {
+        trials_value = trials;
+        mean_value = mean;
+        stddev_value = stddev;
+
+        // Compute the 95% confidence interval
+        double margin = (1.96 * stddev_value) / Math.sqrt(trials);
+        confidenceLo_value = mean_value - margin;
+        confidenceHi_value = mean_value + margin;
+    }
+
+    /**
+     * Runs trials in batches until the 95% confidence interval is at most
+     * `halfWidth` on each side of the mean, or `maxTrials` trials have run.
+     * 
+     * Mean and variance are updated online with Welford's method, so only the
+     * current batch of thresholds is kept. Trials are seeded as in the parallel
+     * constructor and the batch size does not depend on the thread count, so a
+     * fixed seed gives the same result, and the same number of trials, for any
+     * thread count.
+     * 
+     * @param n the dimension of the grid
+     * @param halfWidth target half-width of the 95% confidence interval
+     * @param maxTrials upper bound on the number of trials
+     * @param seed seed of the whole run
+     * @param threads number of worker threads
+     * @return the statistics; trials() tells how many trials were actually run
+     * @throws IllegalArgumentException if n <= 0, halfWidth <= 0, maxTrials < 2 or threads <= 0
+     */
+    public static PercolationStats adaptive(int n, double halfWidth, int maxTrials, long seed, int threads) {
+        checkArguments(n, maxTrials);
+        if (!(halfWidth > 0.0)) throw new IllegalArgumentException("Confidence half-width must be > 0");
+        if (maxTrials < 2) throw new IllegalArgumentException("At least 2 trials are needed for a confidence interval");
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be > 0");
+
+        double[] batch = new double[BATCH_SIZE];
+        int count = 0;
+        double mean = 0.0;
+        double m2 = 0.0;  // sum of squared deviations from the running mean
+
+        try (TrialEngine engine = new TrialEngine(n, seed, threads)) {
+            while (count < maxTrials) {
+                int size = Math.min(BATCH_SIZE, maxTrials - count);
+                engine.run(batch, count, size);
+
+                // Welford's update, in trial order so the result is reproducible
+                for (int i = 0; i < size; i++) {
+                    count++;
+                    double delta = batch[i] - mean;
+                    mean += delta / count;
+                    m2 += delta * (batch[i] - mean);
+                }
+
+                double margin = 1.96 * Math.sqrt(m2 / (count - 1)) / Math.sqrt(count);
+                if (margin <= halfWidth) break;
+            }
+        }
+
+        return new PercolationStats(count, mean, Math.sqrt(m2 / (count - 1)));
+    }
+
+    /**
+     * Perform `trials` seeded experiments like the parallel constructor, keeping
+     * a checkpoint file so that an interrupted run can be resumed.
+     * 
+     * After every batch of trials their thresholds are appended to the file. As
+     * trial i is fully determined by (seed, i), the number of thresholds already
+     * in the file is all the random state a resumed run needs: it restarts at
+     * the first trial that was not recorded and gives exactly the result of an
+     * uninterrupted run.
+     * 
+     * @param n the dimension of the grid
+     * @param trials number of independent trials to perform
+     * @param seed seed of the whole run
+     * @param threads number of worker threads
+     * @param checkpoint file to resume from, created if it does not exist
+     * @throws IllegalArgumentException if n <= 0, trials <= 0 or threads <= 0,
+     *         or if the checkpoint was written for a different run
+     * @throws IOException if the checkpoint cannot be read or written
+     */
+    public static PercolationStats resumable(int n, int trials, long seed, int threads, Path checkpoint)
+            throws IOException {
+        checkArguments(n, trials);
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be > 0");
+
+        double[] thresholds = new double[trials];
+        double[] batch = new double[BATCH_SIZE];
+
+        try (Checkpoint file = new Checkpoint(checkpoint, n, trials, seed);
+             TrialEngine engine = new TrialEngine(n, seed, threads)) {
+            int done = file.restore(thresholds);
+            while (done < trials) {
+                int size = Math.min(BATCH_SIZE, trials - done);
+                engine.run(batch, done, size);
+                file.append(batch, size);
+                System.arraycopy(batch, 0, thresholds, done, size);
+                done += size;
+            }
+        }
+        return new PercolationStats(thresholds);
+    }
+
+    /**
+     * Runs all trials on the calling thread, seeding the run from StdRandom.
+     */
+    private static double[] runTrials(int n, int trials) {
+        checkArguments(n, trials);
+        return runTrials(n, trials, StdRandom.uniformLong(Long.MAX_VALUE), 1);
+    }
+
+    /**
+     * Runs all trials, in parallel when more than one thread is requested.
+     * Each slot of the returned array is written by exactly one trial.
+     */
+    private static double[] runTrials(int n, int trials, long seed, int threads) {
+        checkArguments(n, trials);
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be > 0");
+
+        double[] thresholds = new double[trials]; // stores percolation threshold for each trial
 
+        try (TrialEngine engine = new TrialEngine(n, seed, threads)) {
+            engine.run(thresholds, 0, trials);
+        }
+        return thresholds;
+    }
+
+    /**
+     * Runs one experiment on a reset grid: opens random blocked sites until the
+     * system percolates and returns the fraction of open sites at that moment.
+     */
+    private static double runTrial(Percolation p, int n, SplittableRandom random) {
+        PercolationMetrics.TrialEvent event = PercolationMetrics.ENABLED ? PercolationMetrics.beginTrial() : null;
+        p.reset();
+
+        // Repeatedly open random blocked sites until the system percolates
+        long picks = 0; // only read when metrics are enabled
+        while (!p.percolates()) {
+            int row, col;
+            do {
+                row = random.nextInt(1, n + 1); // pick random row in [1, n]
+                col = random.nextInt(1, n + 1); // pick random col in [1, n]
+                picks++;
+            } while (p.isOpen(row, col)); // avoid reopening
+
+            p.open(row, col); // open the chosen site
+        }
+
+        // Record the fraction of open sites when percolation occurred
+        double threshold = (double) p.numberOfOpenSites() / ((double) n * n);
+        if (event != null) PercolationMetrics.endTrial(event, n, threshold, picks - p.numberOfOpenSites());
+        return threshold;
+    }
+
+    /**
+     * Derives the random stream of a trial from the run seed, independently of
+     * which thread ends up running it.
+     */
+    private static SplittableRandom trialRandom(long seed, int trial) {
+        return new SplittableRandom(seed ^ (trial * 0x9E3779B97F4A7C15L)).split();
+    }
+
+    private static void checkArguments(int n, int trials) {
         if (n <= 0 || trials <= 0) {
             throw new IllegalArgumentException("Grid size and number of trials must be > 0");
         }
+    }
 
-        double[] thresholds = new double[trials]; // stores percolation threshold for each trial
+    /**
+     * Runs trials of one seeded run, on the calling thread or on a fork-join
+     * pool. Every thread keeps one Percolation and resets it between trials,
+     * so the trial loop does not allocate grids once each thread has its own.
+     */
+    private static final class TrialEngine implements AutoCloseable {
+        private final int n;
+        private final long seed;
+        private final ForkJoinPool pool;              // null when running on the calling thread
+        private final ThreadLocal<Percolation> grids; // grid of each pool worker
+        private Percolation grid;                     // grid of the calling thread
+
+        TrialEngine(int n, long seed, int threads) {
+            this.n = n;
+            this.seed = seed;
+            this.pool = threads == 1 ? null : new ForkJoinPool(threads);
+            this.grids = ThreadLocal.withInitial(() -> new Percolation(n));
+        }
+
+        /**
+         * Runs trials first, first+1, ..., first+count-1 and stores their
+         * thresholds in thresholds[0..count).
+         */
+        void run(double[] thresholds, int first, int count) {
+            if (pool == null) {
+                if (grid == null) grid = new Percolation(n);
+                for (int i = 0; i < count; i++) {
+                    thresholds[i] = runTrial(grid, n, trialRandom(seed, first + i));
+                }
+            } else {
+                pool.invoke(new TrialTask(this, thresholds, first, 0, count));
+            }
+        }
+
+        @Override
+        public void close() {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    /**
+     * Append-only checkpoint of a seeded run: a header identifying the run
+     * (magic, version, n, trials, seed) followed by the thresholds of the
+     * completed trials in trial order, 8 bytes each.
+     */
+    private static final class Checkpoint implements AutoCloseable {
+        private static final int MAGIC = 0x50455243; // "PERC"
+        private static final int VERSION = 1;
+        private static final int HEADER_BYTES = 24;
 
-        // Perform all trials
-        for (int i = 0; i < trials; i++) {
-            Percolation p = new Percolation(n);
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BATCH_SIZE * Double.BYTES);
+        private final int n;
+        private final int trials;
+        private final long seed;
 
-            // Repeatedly open random blocked sites until the system percolates
-            while (!p.percolates()) {
-                int row, col;
-                do {
-                    row = StdRandom.uniformInt(1, n + 1); // pick random row in [1, n]
-                    col = StdRandom.uniformInt(1, n + 1); // pick random col in [1, n]
-                } while (p.isOpen(row, col)); // avoid reopening
+        Checkpoint(Path path, int n, int trials, long seed) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.n = n;
+            this.trials = trials;
+            this.seed = seed;
+        }
+
+        /**
+         * Copies the recorded thresholds into thresholds[0..k) and returns k,
+         * writing the header first if the file is new. A record cut short by a
+         * crash is dropped so appends stay aligned.
+         */
+        int restore(double[] thresholds) throws IOException {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(trials).putLong(seed).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.position(HEADER_BYTES);
+                return 0;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, 0);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != n
+                    || header.getInt() != trials || header.getLong() != seed) {
+                throw new IllegalArgumentException("Checkpoint was written for a different run");
+            }
 
-                p.open(row, col); // open the chosen site
+            int done = (int) Math.min(trials, (size - HEADER_BYTES) / Double.BYTES);
+            ByteBuffer records = ByteBuffer.allocate(done * Double.BYTES);
+            readFully(records, HEADER_BYTES);
+            for (int i = 0; i < done; i++) {
+                thresholds[i] = records.getDouble();
             }
 
-            // Record the fraction of open sites when percolation occurred
-            thresholds[i] = (double) p.numberOfOpenSites() / (n * n);
+            long end = HEADER_BYTES + (long) done * Double.BYTES;
+            channel.truncate(end);
+            channel.position(end);
+            return done;
         }
 
-        // Compute statistical results using helper class StdStats
-        mean_value = StdStats.mean(thresholds);
-        stddev_value = StdStats.stddev(thresholds);
+        /**
+         * Appends the first count thresholds of batch to the file.
+         */
+        void append(double[] batch, int count) throws IOException {
+            buffer.clear();
+            for (int i = 0; i < count; i++) {
+                buffer.putDouble(batch[i]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
 
-        // Compute the 95% confidence interval
-        double margin = (1.96 * stddev_value) / Math.sqrt(trials);
-        confidenceLo_value = mean_value - margin;
-        confidenceHi_value = mean_value + margin;
+        private void readFully(ByteBuffer target, long position) throws IOException {
+            while (target.hasRemaining()) {
+                int read = channel.read(target, position + target.position());
+                if (read < 0) throw new IOException("Checkpoint ended early");
+            }
+            target.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Fork-join task running the trials first+lo .. first+hi-1 into
+     * thresholds[lo..hi), splitting the range in halves until it is small
+     * enough to run directly. Tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static final class TrialTask extends RecursiveAction {
+        private static final int CUTOFF = 4; // trials run directly by one task
+
+        private final TrialEngine engine;
+        private final double[] thresholds;
+        private final int first;
+        private final int lo;
+        private final int hi;
+
+        TrialTask(TrialEngine engine, double[] thresholds, int first, int lo, int hi) {
+            this.engine = engine;
+            this.thresholds = thresholds;
+            this.first = first;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= CUTOFF) {
+                Percolation grid = engine.grids.get();
+                for (int i = lo; i < hi; i++) {
+                    thresholds[i] = runTrial(grid, engine.n, trialRandom(engine.seed, first + i));
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new TrialTask(engine, thresholds, first, lo, mid),
+                      new TrialTask(engine, thresholds, first, mid, hi));
+        }
     }
 
     // Returns the sample mean of percolation threshold
@@ -80,9 +420,19 @@ public class PercolationStats {
         return confidenceHi_value;
     }
 
+    // Returns the number of trials that were run
+    public int trials() {
+        return trials_value;
+    }
+
     /**
      * Test client for the PercolationStats class.
      * Expects two integers from standard input: grid size `n` and number of trials.
+     * An optional command-line argument gives the number of worker threads, in
+     * which case the trials run in parallel with a fixed seed. A second optional
+     * argument gives a target confidence half-width, in which case the number of
+     * trials read is only an upper bound and the run stops once the interval is
+     * tight enough.
      * Then prints statistical results.
      */
     public static void main(String[] args) {
@@ -90,12 +440,21 @@ public class PercolationStats {
         int trials = StdIn.readInt(); // read number of trials
 
         try {
-            PercolationStats stats = new PercolationStats(n, trials);
+            PercolationStats stats;
+            if (args.length > 1) {
+                stats = adaptive(n, Double.parseDouble(args[1]), trials, 42L, Integer.parseInt(args[0]));
+            } else if (args.length > 0) {
+                stats = new PercolationStats(n, trials, 42L, Integer.parseInt(args[0]));
+            } else {
+                stats = new PercolationStats(n, trials);
+            }
 
+            StdOut.println("trials                  = " + stats.trials());
             StdOut.println("mean                    = " + stats.mean());
             StdOut.println("stddev                  = " + stats.stddev());
             StdOut.println("95% confidence interval = [" + 
                            stats.confidenceLo() + ", " + stats.confidenceHi() + "]");
+            if (PercolationMetrics.ENABLED) PercolationMetrics.print();
         } catch (IllegalArgumentException e) {
             StdOut.println("Invalid input: " + e.getMessage());
         }
@@ -0,0 +1,225 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class decides whether a grid of width n percolates while reading it one
+ * row at a time, in the style of the Hoshen–Kopelman cluster labelling.
+ *
+ * Only the labels of the last row are kept. Each open site of a new row gets a
+ * fresh label, which is merged with its left and upper neighbours through a
+ * small union-find over the labels of two rows; every label remembers whether
+ * its cluster touches the top row. The new row is then relabelled compactly, so
+ * clusters that no longer reach the current row are forgotten. Memory is O(n)
+ * whatever the number of rows, and after the last row percolates() gives the
+ * same answer as Percolation.percolates() on the whole grid.
+ */
+public class StreamingPercolation {
+
+    private final int n;          // Grid width
+    private int[] previous;       // Labels of the last row read, -1 for blocked sites
+    private int[] current;        // Labels of the row being read
+    private int labels;           // Number of labels used by the last row read
+    private final int[] parent;   // Union-find over the labels of two rows
+    private final boolean[] top;  // top[label] = cluster is connected to the top row
+    private final int[] remap;    // old root -> compact label, while relabelling
+    private final boolean[] full; // top flags of the compact labels
+    private long rows;            // Number of rows read
+    private long openSites;       // Number of open sites read
+    private boolean percolates;   // some open site of the last row is connected to the top
+
+    /**
+     * Creates an empty strip of width n.
+     *
+     * @param n the width of the grid
+     * @throws IllegalArgumentException if n <= 0
+     */
+    public StreamingPercolation(int n) {
+        if (n <= 0) throw new IllegalArgumentException("Grid size must be greater than 0");
+
+        this.n = n;
+        this.previous = new int[n];
+        this.current = new int[n];
+        this.parent = new int[2 * n];
+        this.top = new boolean[2 * n];
+        this.remap = new int[2 * n];
+        this.full = new boolean[n];
+        Arrays.fill(previous, -1);
+    }
+
+    /**
+     * Appends a row at the bottom of the strip.
+     *
+     * @param row row[c] is true if the site in column c is open
+     * @throws IllegalArgumentException if row is null or not of length n
+     */
+    public void addRow(boolean[] row) {
+        if (row == null || row.length != n) {
+            throw new IllegalArgumentException("Row must have length " + n);
+        }
+
+        // Give every open site a fresh label after those of the previous row,
+        // and merge it with its open left and upper neighbours
+        int next = labels;
+        for (int c = 0; c < n; c++) {
+            if (!row[c]) {
+                current[c] = -1;
+                continue;
+            }
+            openSites++;
+
+            int label = next++;
+            parent[label] = label;
+            top[label] = rows == 0; // every open site of the first row touches the top
+            if (c > 0 && current[c - 1] >= 0) union(label, current[c - 1]);
+            if (previous[c] >= 0) union(label, previous[c]);
+            current[c] = label;
+        }
+
+        // Relabel the row compactly; clusters that stopped here are dropped
+        Arrays.fill(remap, 0, next, -1);
+        int count = 0;
+        percolates = false;
+        for (int c = 0; c < n; c++) {
+            if (current[c] < 0) continue;
+            int root = find(current[c]);
+            if (remap[root] < 0) {
+                remap[root] = count;
+                full[count] = top[root];
+                percolates |= top[root];
+                count++;
+            }
+            current[c] = remap[root];
+        }
+        for (int label = 0; label < count; label++) {
+            parent[label] = label;
+            top[label] = full[label];
+        }
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+        labels = count;
+        rows++;
+    }
+
+    /**
+     * Returns the root label of the cluster containing label p.
+     */
+    private int find(int p) {
+        while (p != parent[p]) {
+            parent[p] = parent[parent[p]]; // path halving
+            p = parent[p];
+        }
+        return p;
+    }
+
+    /**
+     * Merges the clusters of labels p and q, keeping the top flag.
+     */
+    private void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return;
+        parent[rootP] = rootQ;
+        top[rootQ] |= top[rootP];
+    }
+
+    /**
+     * Returns true if the rows read so far percolate, i.e., if some open site
+     * of the last row is connected to an open site of the first row.
+     */
+    public boolean percolates() {
+        return percolates;
+    }
+
+    /**
+     * Returns the number of rows read so far.
+     */
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of open sites read so far.
+     */
+    public long numberOfOpenSites() {
+        return openSites;
+    }
+
+    /**
+     * Returns the fraction of open sites among all sites read so far.
+     */
+    public double openFraction() {
+        return rows == 0 ? 0.0 : (double) openSites / ((double) rows * n);
+    }
+
+    /**
+     * Streams a random strip of the given size, where every site is open
+     * independently with probability p.
+     *
+     * @throws IllegalArgumentException unless n > 0, rows > 0 and 0 <= p <= 1
+     */
+    public static StreamingPercolation random(int n, long rows, double p, long seed) {
+        if (rows <= 0) throw new IllegalArgumentException("Number of rows must be > 0");
+        if (!(p >= 0.0 && p <= 1.0)) throw new IllegalArgumentException("p must be between 0 and 1");
+
+        StreamingPercolation strip = new StreamingPercolation(n);
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean[] row = new boolean[n];
+        for (long r = 0; r < rows; r++) {
+            for (int c = 0; c < n; c++) {
+                row[c] = random.nextDouble() < p;
+            }
+            strip.addRow(row);
+        }
+        return strip;
+    }
+
+    /**
+     * Streams a grid from a text file with one row per line, where '1' marks
+     * an open site and any other character a blocked one. The width is taken
+     * from the first line.
+     *
+     * @throws IllegalArgumentException if the file is empty or rows differ in length
+     */
+    public static StreamingPercolation fromFile(String filename) {
+        In in = new In(filename);
+        StreamingPercolation strip = null;
+        boolean[] row = null;
+        while (in.hasNextLine()) {
+            String line = in.readLine();
+            if (line.isEmpty()) continue;
+            if (strip == null) {
+                strip = new StreamingPercolation(line.length());
+                row = new boolean[line.length()];
+            }
+            if (line.length() != row.length) {
+                throw new IllegalArgumentException("Row " + (strip.rows() + 1) + " has length " + line.length());
+            }
+            for (int c = 0; c < row.length; c++) {
+                row[c] = line.charAt(c) == '1';
+            }
+            strip.addRow(row);
+        }
+        if (strip == null) throw new IllegalArgumentException("No rows in " + filename);
+        return strip;
+    }
+
+    /**
+     * Test client.
+     * Usage: java StreamingPercolation filename
+     *    or: java StreamingPercolation n rows p
+     */
+    public static void main(String[] args) {
+        StreamingPercolation strip = args.length == 1
+                ? fromFile(args[0])
+                : random(Integer.parseInt(args[0]), Long.parseLong(args[1]), Double.parseDouble(args[2]), 42L);
+
+        StdOut.println("rows          = " + strip.rows());
+        StdOut.println("open fraction = " + strip.openFraction());
+        StdOut.println("percolates    = " + strip.percolates());
+    }
+}
@@ -0,0 +1,229 @@
+import edu.princeton.cs.algs4.StdOut;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A whitespace tokenizer over raw bytes, for text-driven clients such as
+ * Permutation that read many tokens and keep only a few.
+ *
+ * Files (and standard input redirected from a file) are memory-mapped in
+ * windows of up to 256 MiB; other standard input is read in 1 MiB chunks into
+ * a direct buffer. next() finds token boundaries by scanning bytes, without a
+ * Scanner, regular expressions or any allocation, and token() builds a String
+ * only for the tokens the caller asks for. A token is copied into a scratch
+ * array only when it spans two windows.
+ *
+ * Tokens are separated by ASCII whitespace (space, \t, \n, \u000B, \f, \r) and
+ * decoded as UTF-8. Unlike StdIn, non-ASCII whitespace does not split tokens.
+ */
+public final class ByteTokenizer implements Closeable {
+    private static final long WINDOW = 256L << 20; // bytes mapped at a time
+    private static final int CHUNK = 1 << 20;      // bytes read at a time from a stream
+
+    private final FileChannel channel;
+    private final boolean mapped;     // true if the channel is mapped, false if it is read
+    private long mapPosition;         // file offset of the next window to map
+    private final long mapEnd;        // file offset where mapping stops
+
+    private ByteBuffer buffer;        // current window or chunk
+    private int pos;                  // next byte to scan in buffer
+    private int limit;                // end of valid bytes in buffer
+
+    private int tokenStart;           // current token is buffer[tokenStart, tokenEnd) ...
+    private int tokenEnd;
+    private byte[] scratch = new byte[64]; // ... or scratch[0, scratchLength) if it spanned windows
+    private int scratchLength;
+    private boolean spanning;
+
+    private ByteTokenizer(FileChannel channel, boolean mapped, long start, long end) {
+        this.channel = channel;
+        this.mapped = mapped;
+        this.mapPosition = start;
+        this.mapEnd = end;
+        if (!mapped) {
+            buffer = ByteBuffer.allocateDirect(CHUNK);
+            buffer.limit(0);
+        }
+    }
+
+    /**
+     * Returns a tokenizer over the given file, which is memory-mapped.
+     *
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static ByteTokenizer open(String filename) {
+        try {
+            FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+            return new ByteTokenizer(channel, true, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open " + filename, e);
+        }
+    }
+
+    /**
+     * Returns a tokenizer over standard input. If standard input is a regular
+     * file it is memory-mapped from its current position, otherwise it is read
+     * in large chunks.
+     */
+    public static ByteTokenizer stdin() {
+        FileChannel channel = new FileInputStream(FileDescriptor.in).getChannel();
+        try {
+            long size = channel.size();
+            long position = channel.position();
+            if (size > position) return new ByteTokenizer(channel, true, position, size);
+        } catch (IOException e) {
+            // a pipe or terminal: fall through to chunked reads
+        }
+        return new ByteTokenizer(channel, false, 0, 0);
+    }
+
+    /**
+     * Advances to the next token and returns true, or returns false if the
+     * input has no more tokens.
+     */
+    public boolean next() {
+        int p = pos;
+        spanning = false;
+        scratchLength = 0;
+
+        // Skip whitespace
+        while (true) {
+            if (p == limit) {
+                if (!refill()) {
+                    pos = p = limit;
+                    tokenStart = tokenEnd = p;
+                    return false;
+                }
+                p = 0;
+            }
+            if (!isSpace(buffer.get(p))) break;
+            p++;
+        }
+
+        // Scan the token, carrying its first part over if it runs past the buffer
+        int start = p;
+        while (true) {
+            if (p == limit) {
+                append(start, p);
+                spanning = true;
+                if (!refill()) {
+                    start = p = limit;
+                    break;
+                }
+                start = p = 0;
+                continue;
+            }
+            if (isSpace(buffer.get(p))) break;
+            p++;
+        }
+        if (spanning) append(start, p);
+
+        tokenStart = start;
+        tokenEnd = p;
+        pos = p;
+        return true;
+    }
+
+    /**
+     * Returns the current token as a String.
+     *
+     * @throws IllegalStateException if next() has not returned true
+     */
+    public String token() {
+        if (spanning) return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+        if (tokenEnd == tokenStart) throw new IllegalStateException("No current token");
+
+        int length = tokenEnd - tokenStart;
+        ensureScratch(length);
+        buffer.get(tokenStart, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the length in bytes of the current token.
+     */
+    public int tokenLength() {
+        return spanning ? scratchLength : tokenEnd - tokenStart;
+    }
+
+    /**
+     * Closes the underlying channel.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    // Copies buffer[from, to) to the end of the scratch array
+    private void append(int from, int to) {
+        int length = to - from;
+        ensureScratch(scratchLength + length);
+        buffer.get(from, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private void ensureScratch(int capacity) {
+        if (capacity > scratch.length) {
+            byte[] copy = new byte[Math.max(capacity, 2 * scratch.length)];
+            System.arraycopy(scratch, 0, copy, 0, scratchLength);
+            scratch = copy;
+        }
+    }
+
+    // Loads the next window or chunk; returns false at the end of the input
+    private boolean refill() {
+        try {
+            if (mapped) {
+                if (mapPosition >= mapEnd) return false;
+                long size = Math.min(WINDOW, mapEnd - mapPosition);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapPosition, size);
+                mapPosition += size;
+            } else {
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer);
+                } while (read == 0);
+                if (read < 0) {
+                    buffer.limit(0);
+                    limit = 0;
+                    return false;
+                }
+                buffer.flip();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pos = 0;
+        limit = buffer.limit();
+        return true;
+    }
+
+    /**
+     * Test client: counts the tokens of a file or of standard input and
+     * prints the first few.
+     * Usage: java ByteTokenizer [filename] < input.txt
+     */
+    public static void main(String[] args) throws IOException {
+        try (ByteTokenizer in = args.length > 0 ? open(args[0]) : stdin()) {
+            long tokens = 0;
+            while (in.next()) {
+                if (tokens < 5) StdOut.println("token: " + in.token());
+                tokens++;
+            }
+            StdOut.println(tokens + " tokens");
+        }
+    }
+}
@@ -0,0 +1,341 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * A thread-safe randomized queue: items are split over independently locked
+ * shards, each a resizing array like RandomizedQueue with its own random
+ * generator, so threads working on different shards never wait for each other.
+ *
+ * enqueue() adds to a random shard, moving on to another one if it is busy,
+ * which keeps the shards about equally full. dequeue() and sample() pick a
+ * shard with probability proportional to its size by rejection: a uniformly
+ * random shard is accepted with probability size/bound, where bound is at
+ * least the size of every shard, and then an item is chosen uniformly within
+ * it. While the shards are about equally full this takes O(1) expected tries;
+ * after a run of rejections the bound is lowered to the largest shard size by
+ * one scan over the shards.
+ *
+ * Each shard publishes its size to its own cache line of a shared padded
+ * array, so reading a size neither takes a lock nor contends with updates to
+ * the other shards.
+ *
+ * Uniformity: with no concurrent updates every item is chosen with probability
+ * exactly 1/size(). A shard's size is read without locking, so an update
+ * racing with the choice can bias it: if the chosen shard holds s items when it
+ * is locked but s' when its size was read, an item in it is picked with s'/s
+ * times the uniform probability. If k updates overlap the
+ * call, |s' - s| <= k, so the relative error of that probability is at most k/s.
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+
+    // ints per 64-byte cache line: each shard's published size gets a line of its own
+    private static final int PAD = 16;
+
+    // One shard: a resizing array guarded by its own lock
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicIntegerArray sizes; // shared array the size is published to
+        private final int slot;                 // index of this shard's size in sizes
+        private final SplittableRandom random;
+        private Object[] items = new Object[2];
+        private int size;
+
+        Shard(long seed, AtomicIntegerArray sizes, int slot) {
+            this.random = new SplittableRandom(seed);
+            this.sizes = sizes;
+            this.slot = slot;
+        }
+
+        // Adds an item and returns the new size
+        int add(Object item) {
+            if (size == items.length) resize(2 * items.length);
+            items[size++] = item;
+            sizes.set(slot, size);
+            return size;
+        }
+
+        // Removes a uniformly random item by moving the last item into its slot
+        Object removeRandom() {
+            int index = random.nextInt(size);
+            Object item = items[index];
+            items[index] = items[size - 1];
+            items[size - 1] = null; // avoid loitering
+            size--;
+            sizes.set(slot, size);
+            if (size > 0 && size == items.length / 4) resize(items.length / 2);
+            return item;
+        }
+
+        Object sample() {
+            return items[random.nextInt(size)];
+        }
+
+        private void resize(int capacity) {
+            Object[] copy = new Object[capacity];
+            System.arraycopy(items, 0, copy, 0, size);
+            items = copy;
+        }
+    }
+
+    private final Shard[] shards;
+
+    // Shard i publishes its size at index (i + 1) * PAD; the rest is padding
+    private final AtomicIntegerArray sizes;
+
+    // At least the size of every shard once the updates in progress finish
+    private final AtomicInteger bound = new AtomicInteger(1);
+
+    /**
+     * Creates an empty queue with two shards per available processor.
+     */
+    public ConcurrentRandomizedQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an empty queue with the given number of shards.
+     *
+     * @throws IllegalArgumentException if shards <= 0
+     */
+    public ConcurrentRandomizedQueue(int shards) {
+        if (shards <= 0) throw new IllegalArgumentException("Number of shards must be > 0");
+
+        this.shards = new Shard[shards];
+        this.sizes = new AtomicIntegerArray((shards + 1) * PAD);
+        SplittableRandom seeds = new SplittableRandom();
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(seeds.nextLong(), sizes, (i + 1) * PAD);
+        }
+    }
+
+    // Returns true if the queue is empty at some point during the call
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Returns the number of items, a snapshot while other threads are active
+    public int size() {
+        int total = 0;
+        for (Shard shard : shards) total += sizes.get(shard.slot);
+        return total;
+    }
+
+    // Adds an item to the queue
+    public void enqueue(Item item) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot enqueue null item");
+
+        // Try a few random shards, then wait on the last one tried
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Shard shard = shards[random.nextInt(shards.length)];
+        for (int attempt = 1; !shard.lock.tryLock(); attempt++) {
+            if (attempt == 4) {
+                shard.lock.lock();
+                break;
+            }
+            shard = shards[random.nextInt(shards.length)];
+        }
+
+        int size;
+        try {
+            size = shard.add(item);
+        } finally {
+            shard.lock.unlock();
+        }
+        raiseBound(size);
+    }
+
+    // Removes and returns a random item from the queue
+    public Item dequeue() {
+        Item item = poll();
+        if (item == null)
+            throw new NoSuchElementException("Queue is empty");
+        return item;
+    }
+
+    // Removes and returns a random item, or returns null if the queue is empty
+    @SuppressWarnings("unchecked")
+    public Item poll() {
+        while (true) {
+            Shard shard = pickShard();
+            if (shard == null) return null;
+            shard.lock.lock();
+            try {
+                if (shard.size > 0) return (Item) shard.removeRandom();
+            } finally {
+                shard.lock.unlock();
+            }
+            // the shard was emptied by another thread since its size was read; pick again
+        }
+    }
+
+    // Returns (but does not remove) a random item from the queue
+    @SuppressWarnings("unchecked")
+    public Item sample() {
+        while (true) {
+            Shard shard = pickShard();
+            if (shard == null)
+                throw new NoSuchElementException("Queue is empty");
+            shard.lock.lock();
+            try {
+                if (shard.size > 0) return (Item) shard.sample();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the items in random order. Each
+     * shard is copied under its lock, so the snapshot is consistent per shard
+     * but not necessarily across shards.
+     */
+    public Iterator<Item> iterator() {
+        RandomizedQueue<Item> snapshot = new RandomizedQueue<>();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (int i = 0; i < shard.size; i++) {
+                    @SuppressWarnings("unchecked")
+                    Item item = (Item) shard.items[i];
+                    snapshot.enqueue(item);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return snapshot.iterator();
+    }
+
+    // Picks a shard with probability proportional to its size, or returns
+    // null if the queue is empty. A uniformly random shard is accepted with
+    // probability size/bound; after 2 * shards rejections in a row the bound
+    // is tightened, which also detects an empty queue.
+    private Shard pickShard() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int misses = 0;
+        while (true) {
+            Shard shard = shards[random.nextInt(shards.length)];
+            if (random.nextInt(bound.get()) < sizes.get(shard.slot)) return shard;
+            if (++misses == 2 * shards.length) {
+                if (!tightenBound()) return null;
+                misses = 0;
+            }
+        }
+    }
+
+    // Raises the bound to at least size
+    private void raiseBound(int size) {
+        int current;
+        while ((current = bound.get()) < size && !bound.compareAndSet(current, size)) { }
+    }
+
+    // Lowers the bound to the largest shard size and returns false if every
+    // shard is empty. enqueue() publishes a size before reading the bound,
+    // and this sets the bound before reading the sizes again, so one of the
+    // two sees the other and the bound never stays below a shard's size.
+    private boolean tightenBound() {
+        int current = bound.get();
+        int largest = largestSize();
+        if (largest == 0) return false;
+        if (largest < current && bound.compareAndSet(current, largest)) raiseBound(largestSize());
+        return true;
+    }
+
+    private int largestSize() {
+        int largest = 0;
+        for (Shard shard : shards) largest = Math.max(largest, sizes.get(shard.slot));
+        return largest;
+    }
+
+    /**
+     * Stress test and benchmark: producer threads enqueue disjoint ranges of
+     * integers, consumer threads dequeue them, and every item must come out
+     * exactly once. The same workload runs on a RandomizedQueue guarded by one
+     * lock, with consumers polling both queues the same way, for 1, 2, 4 and
+     * the given number of producer/consumer pairs.
+     * Usage: java ConcurrentRandomizedQueue [items per thread] [threads]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                                         : Runtime.getRuntime().availableProcessors();
+
+        StdOut.println("throughput in million operations (enqueue + dequeue) per second:");
+        StdOut.printf("%8s %10s %13s%n", "pairs", "sharded", "synchronized");
+        for (int threads : IntStream.of(1, 2, 4, maxThreads).distinct().sorted().toArray()) {
+            ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>();
+            double sharded = run(perThread, threads, queue::enqueue, queue::poll);
+
+            RandomizedQueue<Integer> locked = new RandomizedQueue<>();
+            double synchronizedTime = run(perThread, threads,
+                item -> {
+                    synchronized (locked) {
+                        locked.enqueue(item);
+                    }
+                },
+                () -> {
+                    synchronized (locked) {
+                        return locked.isEmpty() ? null : locked.dequeue();
+                    }
+                });
+
+            double operations = 2.0 * perThread * threads / 1e6;
+            StdOut.printf("%8d %10.2f %13.2f%n", threads, operations / sharded, operations / synchronizedTime);
+        }
+        StdOut.println("every item dequeued exactly once");
+
+        // Quiescent uniformity check: sample a small queue many times
+        ConcurrentRandomizedQueue<Integer> small = new ConcurrentRandomizedQueue<>(8);
+        for (int i = 0; i < 10; i++) small.enqueue(i);
+        int[] counts = new int[10];
+        for (int i = 0; i < 1_000_000; i++) counts[small.sample()]++;
+        StdOut.println("sample counts (expect ~100000 each): " + Arrays.toString(counts));
+    }
+
+    // Runs threads producers and threads consumers of perThread items each,
+    // checks that every item is polled exactly once and returns the seconds taken
+    private static double run(int perThread, int threads, Consumer<Integer> enqueue, Supplier<Integer> poll)
+            throws InterruptedException {
+        AtomicIntegerArray seen = new AtomicIntegerArray(perThread * threads);
+        Thread[] workers = new Thread[2 * threads];
+        for (int t = 0; t < threads; t++) {
+            int first = t * perThread;
+            workers[t] = new Thread(() -> {
+                for (int i = first; i < first + perThread; i++) enqueue.accept(i);
+            });
+            workers[threads + t] = new Thread(() -> {
+                for (int taken = 0; taken < perThread; ) {
+                    Integer item = poll.get();
+                    if (item == null) {
+                        Thread.onSpinWait(); // producers are behind
+                        continue;
+                    }
+                    seen.incrementAndGet(item);
+                    taken++;
+                }
+            });
+        }
+
+        Stopwatch timer = new Stopwatch();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        double elapsed = timer.elapsedTime();
+
+        for (int i = 0; i < seen.length(); i++) {
+            if (seen.get(i) != 1) throw new AssertionError("item " + i + " seen " + seen.get(i) + " times");
+        }
+        return elapsed;
+    }
+}
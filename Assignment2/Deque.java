@@ -1,6 +1,9 @@
 import edu.princeton.cs.algs4.StdOut;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
 
 /**
  * A double-ended queue or deque that supports adding and removing items
@@ -48,6 +51,64 @@ public class Deque<Item> implements Iterable<Item> {
         }
     }
 
+    /**
+     * Spliterator over a run of `count` nodes starting at `current`. It splits
+     * in balanced halves: trySplit() walks half of the run and hands that
+     * prefix to a new spliterator, so a split costs time proportional to the
+     * part handed off, and each half of the split tree has exactly known size.
+     */
+    private class DequeSpliterator implements Spliterator<Item> {
+        private Node<Item> current;
+        private int count;
+
+        DequeSpliterator(Node<Item> start, int count) {
+            current = start;
+            this.count = count;
+        }
+
+        @Override
+        public Spliterator<Item> trySplit() {
+            int half = count >>> 1;
+            if (half == 0) return null;
+
+            Node<Item> start = current;
+            for (int i = 0; i < half; i++) current = current.next;
+            count -= half;
+            return new DequeSpliterator(start, half);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null) throw new NullPointerException("Action is null");
+            if (count == 0) return false;
+
+            Item item = current.item;
+            current = current.next;
+            count--;
+            action.accept(item);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null) throw new NullPointerException("Action is null");
+            for (; count > 0; count--) {
+                action.accept(current.item);
+                current = current.next;
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return count;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
     /**
      * Initializes an empty deque.
      */
@@ -158,6 +219,17 @@ public class Deque<Item> implements Iterable<Item> {
         return new DequeIterator<>(first);
     }
 
+    /**
+     * Returns a spliterator over the items in order from front to end, which
+     * splits into balanced halves so that parallel streams over the deque
+     * divide the work evenly. The deque must not be modified while it is
+     * traversed.
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new DequeSpliterator(first, size);
+    }
+
     /**
      * Unit test. Tests functionality of the Deque class.
      */
@@ -193,5 +265,14 @@ public class Deque<Item> implements Iterable<Item> {
         for (String item : deque) {
             StdOut.println("Iterate element: " + item);
         }
+
+        // Parallel stream over the deque through its spliterator
+        Deque<Integer> numbers = new Deque<>();
+        for (int i = 1; i <= 1_000_000; i++) numbers.addLast(i);
+        long parallelSum = StreamSupport.stream(numbers.spliterator(), true).mapToLong(Integer::longValue).sum();
+        StdOut.println("parallel sum of 1..1000000: " + parallelSum + " (expect 500000500000)");
+        StdOut.println("first ten in parallel, order kept: "
+                + StreamSupport.stream(numbers.spliterator(), true).limit(10).map(String::valueOf)
+                               .reduce((a, b) -> a + " " + b).orElse(""));
     }
 }
@@ -0,0 +1,236 @@
+import edu.princeton.cs.algs4.StdOut;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A double-ended queue of long values, the primitive counterpart of
+ * ResizingArrayDeque. Values are stored unboxed in a circular resizing array,
+ * so once the array has grown to the working size no operation allocates.
+ * All single-value operations take constant amortized time; the bulk
+ * operations copy with System.arraycopy and resize at most once.
+ */
+public class LongDeque {
+    private static final int MIN_CAPACITY = 8;
+
+    // Largest power-of-two array length, since indices wrap by masking with length - 1
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // Circular buffer; its length is always a power of two
+    private long[] values;
+
+    // Index of the first value, and current number of values in the deque
+    private int head;
+    private int size;
+
+    /**
+     * Iterator class for the deque, iterates from front to end without boxing.
+     */
+    private class LongDequeIterator implements PrimitiveIterator.OfLong {
+        private int offset; // position of the next value relative to head
+
+        @Override
+        public boolean hasNext() {
+            return offset < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException("No more elements");
+            return values[(head + offset++) & (values.length - 1)];
+        }
+    }
+
+    /**
+     * Initializes an empty deque.
+     */
+    public LongDeque() {
+        values = new long[MIN_CAPACITY];
+    }
+
+    /**
+     * Returns true if the deque is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of values in the deque.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a value to the front of the deque.
+     */
+    public void addFirst(long value) {
+        if (size == values.length) ensureCapacity(size + 1);
+
+        head = (head - 1) & (values.length - 1);
+        values[head] = value;
+        size++;
+    }
+
+    /**
+     * Adds a value to the end of the deque.
+     */
+    public void addLast(long value) {
+        if (size == values.length) ensureCapacity(size + 1);
+
+        values[(head + size) & (values.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Adds all values to the end of the deque, in array order.
+     */
+    public void addAllLast(long[] source) {
+        if (source == null) throw new NullPointerException("Cannot add null array to deque");
+        ensureCapacity(size + source.length);
+
+        int tail = (head + size) & (values.length - 1);
+        int firstPart = Math.min(source.length, values.length - tail);
+        System.arraycopy(source, 0, values, tail, firstPart);
+        System.arraycopy(source, firstPart, values, 0, source.length - firstPart);
+        size += source.length;
+    }
+
+    /**
+     * Adds all values to the front of the deque, keeping their array order,
+     * so that source[0] becomes the first value.
+     */
+    public void addAllFirst(long[] source) {
+        if (source == null) throw new NullPointerException("Cannot add null array to deque");
+        ensureCapacity(size + source.length);
+
+        int start = (head - source.length) & (values.length - 1);
+        int firstPart = Math.min(source.length, values.length - start);
+        System.arraycopy(source, 0, values, start, firstPart);
+        System.arraycopy(source, firstPart, values, 0, source.length - firstPart);
+        head = start;
+        size += source.length;
+    }
+
+    /**
+     * Removes and returns the value from the front.
+     */
+    public long removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException("Deque is empty");
+
+        long value = values[head];
+        head = (head + 1) & (values.length - 1);
+        size--;
+        shrinkIfSparse();
+        return value;
+    }
+
+    /**
+     * Removes and returns the value from the end.
+     */
+    public long removeLast() {
+        if (isEmpty()) throw new NoSuchElementException("Deque is empty");
+
+        long value = values[(head + size - 1) & (values.length - 1)];
+        size--;
+        shrinkIfSparse();
+        return value;
+    }
+
+    /**
+     * Removes up to target.length values from the front into target, in
+     * front-to-end order, and returns how many were removed.
+     */
+    public int removeFirst(long[] target) {
+        if (target == null) throw new NullPointerException("Target array is null");
+        int count = Math.min(target.length, size);
+
+        int firstPart = Math.min(count, values.length - head);
+        System.arraycopy(values, head, target, 0, firstPart);
+        System.arraycopy(values, 0, target, firstPart, count - firstPart);
+        head = (head + count) & (values.length - 1);
+        size -= count;
+        shrinkIfSparse();
+        return count;
+    }
+
+    /**
+     * Removes up to target.length values from the end into target, in
+     * front-to-end order, and returns how many were removed.
+     */
+    public int removeLast(long[] target) {
+        if (target == null) throw new NullPointerException("Target array is null");
+        int count = Math.min(target.length, size);
+
+        int start = (head + size - count) & (values.length - 1);
+        int firstPart = Math.min(count, values.length - start);
+        System.arraycopy(values, start, target, 0, firstPart);
+        System.arraycopy(values, 0, target, firstPart, count - firstPart);
+        size -= count;
+        shrinkIfSparse();
+        return count;
+    }
+
+    /**
+     * Returns an iterator over the values in order from front to end.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new LongDequeIterator();
+    }
+
+    // Grows the array to the next power of two holding at least the given number
+    // of values; needed is negative if the count overflowed an int
+    private void ensureCapacity(int needed) {
+        if (needed < 0 || needed > MAX_CAPACITY)
+            throw new IllegalStateException("Deque cannot hold more than " + MAX_CAPACITY + " values");
+        if (needed <= values.length) return;
+
+        int capacity = values.length;
+        while (capacity < needed) capacity *= 2;
+        resize(capacity);
+    }
+
+    // Halves the array until it is more than a quarter full
+    private void shrinkIfSparse() {
+        int capacity = values.length;
+        while (capacity > MIN_CAPACITY && size <= capacity / 4) capacity /= 2;
+        if (capacity != values.length) resize(capacity);
+    }
+
+    // Moves the values to a new array of the given capacity, unwrapped so that head is 0
+    private void resize(int capacity) {
+        long[] copy = new long[capacity];
+        int firstPart = Math.min(size, values.length - head);
+        System.arraycopy(values, head, copy, 0, firstPart);
+        System.arraycopy(values, 0, copy, firstPart, size - firstPart);
+        values = copy;
+        head = 0;
+    }
+
+    /**
+     * Unit test. Tests functionality of the LongDeque class.
+     */
+    public static void main(String[] args) {
+        LongDeque deque = new LongDeque();
+
+        deque.addFirst(2L);
+        deque.addFirst(1L);
+        deque.addLast(3L);
+        deque.addAllLast(new long[] { 4, 5, 6, 7, 8, 9, 10 });
+        deque.addAllFirst(new long[] { -2, -1, 0 });
+        StdOut.println("size after adds: " + deque.size());
+
+        StdOut.println("removeFirst(): " + deque.removeFirst());
+        StdOut.println("removeLast(): " + deque.removeLast());
+
+        long[] front = new long[3];
+        int removed = deque.removeFirst(front);
+        StdOut.println("removeFirst(3 values): " + removed + " -> " + front[0] + ", " + front[1] + ", " + front[2]);
+
+        StdOut.println("Iterating deque...");
+        PrimitiveIterator.OfLong it = deque.iterator();
+        while (it.hasNext()) {
+            StdOut.println("Iterate element: " + it.nextLong());
+        }
+    }
+}
@@ -1,25 +1,48 @@
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import java.io.IOException;
 
 /**
  * This class reads a sequence of strings from standard input,
- * enqueues them into a RandomizedQueue, and then prints out
- * a specified number of strings chosen uniformly at random
- * (without replacement).
+ * and prints out a specified number of strings chosen uniformly
+ * at random (without replacement).
+ *
+ * The strings are streamed through reservoir sampling, so the
+ * RandomizedQueue never holds more than `count` of them: memory is
+ * O(count) however long the input is. While no more than `count`
+ * strings have been read, every string is simply kept; this is the
+ * same as enqueueing the whole input when `count` is not smaller
+ * than it.
+ *
+ * Input is read with ByteTokenizer, which scans the bytes for token
+ * boundaries and builds a String only for the tokens that enter the
+ * reservoir. An optional second argument names a file to read (and
+ * memory-map) instead of standard input.
  */
 public class Permutation {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Parse the number of items to print from command-line argument
         int count = Integer.parseInt(args[0]);
 
-        // Create an instance of the RandomizedQueue
+        // Create an instance of the RandomizedQueue, used as the reservoir
         RandomizedQueue<String> queue = new RandomizedQueue<>();
 
-        // Read all input strings from standard input and enqueue them
-        while (!StdIn.isEmpty()) {
-            String item = StdIn.readString();  // read one string
-            queue.enqueue(item);               // enqueue it into the queue
+        // Read all input strings, keeping a uniform sample of 'count'
+        try (ByteTokenizer in = args.length > 1 ? ByteTokenizer.open(args[1]) : ByteTokenizer.stdin()) {
+            long seen = 0;
+            while (in.next()) {
+                seen++;
+
+                if (seen <= count) {
+                    queue.enqueue(in.token());     // reservoir not full yet: keep it
+                } else if (StdRandom.uniformLong(seen) < count) {
+                    // The new string belongs to the sample with probability count/seen;
+                    // it evicts a uniformly random member of the reservoir
+                    queue.dequeue();
+                    queue.enqueue(in.token());
+                }
+            }
         }
 
         // Dequeue and print 'count' random strings from the queue
@@ -1,7 +1,16 @@
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
 
 // A generic randomized queue where each dequeue removes a random item.
 public class RandomizedQueue<Item> implements Iterable<Item> {
@@ -12,6 +21,9 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     // Number of elements currently in the queue
     private int size;
 
+    // Number of structural changes, so iterators can detect modification
+    private int modCount;
+
     // Constructor to create an empty randomized queue
     public RandomizedQueue() {
         // Start with a small array of size 2
@@ -40,6 +52,31 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         // Insert item at the end
         items[size++] = item;
+        modCount++;
+    }
+
+    // Adds all items of the array to the queue, resizing at most once
+    public void enqueueAll(Item[] batch) {
+        if (batch == null)
+            throw new IllegalArgumentException("Cannot enqueue null array");
+        for (Item item : batch) {
+            if (item == null)
+                throw new IllegalArgumentException("Cannot enqueue null item");
+        }
+
+        // Double until the batch fits, as repeated enqueue() calls would
+        int capacity = items.length;
+        while (capacity - size < batch.length) {
+            if (capacity > Integer.MAX_VALUE / 2)
+                throw new IllegalStateException("Queue too large");
+            capacity *= 2;
+        }
+        if (capacity != items.length)
+            resize(capacity);
+
+        System.arraycopy(batch, 0, items, size, batch.length);
+        size += batch.length;
+        modCount++;
     }
 
     // Removes and returns a random item from the queue
@@ -58,6 +95,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         items[size - 1] = null; // avoid loitering (memory leak)
 
         size--;
+        modCount++;
 
         // Shrink the array if it's too empty to save space
         if (size > 0 && size == items.length / 4)
@@ -66,6 +104,60 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return item;
     }
 
+    // Removes k random items and returns them in random order, as k calls to dequeue() would,
+    // in a new modifiable list
+    public List<Item> dequeue(int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("Cannot dequeue a negative number of items");
+        if (k > size)
+            throw new NoSuchElementException("Queue has fewer than " + k + " items");
+
+        return removeRandom(k);
+    }
+
+    // Removes up to k random items, adds them to target in random order, and returns how many were moved
+    public int drainTo(Collection<? super Item> target, int k) {
+        if (target == null)
+            throw new IllegalArgumentException("Target collection is null");
+        if (k < 0)
+            throw new IllegalArgumentException("Cannot drain a negative number of items");
+
+        List<Item> batch = removeRandom(Math.min(k, size));
+        target.addAll(batch);
+        return batch.size();
+    }
+
+    // Removes k random items with one partial Fisher–Yates pass: each step swaps
+    // a random item of the unchosen prefix to the end of it, so the chosen items
+    // end up in items[size - k, size) and are copied out in one go. The array
+    // is shrunk at most once afterwards.
+    private List<Item> removeRandom(int k) {
+        for (int j = 0; j < k; j++) {
+            int last = size - 1 - j;
+            int index = StdRandom.uniform(last + 1);
+            Item item = items[index];
+            items[index] = items[last];
+            items[last] = item;
+        }
+
+        List<Item> batch = new ArrayList<>(k);
+        for (int i = size - k; i < size; i++)
+            batch.add(items[i]);
+        Arrays.fill(items, size - k, size, null); // avoid loitering
+        size -= k;
+        if (k > 0)
+            modCount++;
+
+        // Shrink as the equivalent dequeue() calls would have
+        int capacity = items.length;
+        while (size > 0 && size <= capacity / 4)
+            capacity /= 2;
+        if (capacity != items.length)
+            resize(capacity);
+
+        return batch;
+    }
+
     // Returns (but does not remove) a random item from the queue
     public Item sample() {
         if (isEmpty())
@@ -75,48 +167,61 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return items[StdRandom.uniform(size)];
     }
 
-    // Returns an independent iterator over items in random order
+    // Returns an iterator over the items in random order, in its own order independent
+    // of other iterators. Creation is O(1): it does not copy the items but reads the
+    // live array as it goes, so it fails fast with ConcurrentModificationException if
+    // the queue is modified while iterating.
     public Iterator<Item> iterator() {
         return new RandomizedQueueIterator();
     }
 
+    // Returns a spliterator over the items in array order (not random order), which
+    // splits by halving its index range. It is SIZED, SUBSIZED and NONNULL but not
+    // ORDERED, so parallel streams over the queue split evenly down to single items.
+    // The queue must not be modified while it is traversed.
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new RandomizedQueueSpliterator(0, size, modCount);
+    }
+
     // Resizes the underlying array to the given capacity
     private void resize(int capacity) {
         // Create a new array and copy all items into it
         Item[] copy = (Item[]) new Object[capacity];
-        for (int i = 0; i < size; i++)
-            copy[i] = items[i];
+        System.arraycopy(items, 0, copy, 0, size);
         items = copy;
     }
 
-    // Iterator class to iterate through the items in random order
+    // Iterator class to iterate through the items in random order.
+    // It runs Fisher–Yates lazily over the positions [0, size): step i swaps
+    // position i with a random position in [i, size) and returns what lands
+    // at i. Only positions touched by a swap are recorded, in a small int->int
+    // hash map, so construction is O(1) and memory grows with the number of
+    // items actually visited. The queue must not be modified while iterating.
     private class RandomizedQueueIterator implements Iterator<Item> {
-        private final Item[] shuffled; // a shuffled copy of items[]
+        private final int total = size;          // number of items to visit
+        private final int expectedModCount = modCount;
+        private final IntIntMap swapped = new IntIntMap(); // position -> index it now holds
         private int current;
 
-        public RandomizedQueueIterator() {
-            // Make a shallow copy of the current items
-            shuffled = (Item[]) new Object[size];
-            for (int i = 0; i < size; i++)
-                shuffled[i] = items[i];
-
-            // Shuffle the copy so we can iterate in random order
-            StdRandom.shuffle(shuffled);
-
-            current = 0;
-        }
-
         // Check if there are more elements in the iterator
         public boolean hasNext() {
-            return current < shuffled.length;
+            return current < total;
         }
 
         // Return the next item from the iterator
         public Item next() {
             if (!hasNext())
                 throw new NoSuchElementException("No more items");
-
-            return shuffled[current++];
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException("Queue modified during iteration");
+
+            int pick = current + StdRandom.uniform(total - current);
+            int index = swapped.get(pick, pick);
+            if (pick != current)
+                swapped.put(pick, swapped.get(current, current)); // position current is never read again
+            current++;
+            return items[index];
         }
 
         // Remove is unsupported in this iterator
@@ -125,6 +230,112 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    // Spliterator over the index range [index, fence) of the items array
+    private class RandomizedQueueSpliterator implements Spliterator<Item> {
+        private int index;
+        private final int fence;
+        private final int expectedModCount;
+
+        RandomizedQueueSpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        // Hands the first half of the range to a new spliterator and keeps the second
+        public Spliterator<Item> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index)
+                return null;
+            Spliterator<Item> prefix = new RandomizedQueueSpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null)
+                throw new NullPointerException("Action is null");
+            if (index >= fence)
+                return false;
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException("Queue modified during traversal");
+
+            action.accept(items[index++]);
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null)
+                throw new NullPointerException("Action is null");
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException("Queue modified during traversal");
+
+            Item[] a = items;
+            for (int i = index; i < fence; i++)
+                action.accept(a[i]);
+            index = fence;
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException("Queue modified during traversal");
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
+    // Open-addressing hash map from int to int with linear probing, used by
+    // the iterator to store the sparse part of its permutation without boxing
+    private static final class IntIntMap {
+        private int[] keys = new int[8];
+        private int[] values = new int[8];
+        private boolean[] used = new boolean[8];
+        private int count;
+
+        // Returns the value stored for key, or fallback if there is none
+        int get(int key, int fallback) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return fallback;
+        }
+
+        void put(int key, int value) {
+            if (2 * (count + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (used[i] && keys[i] != key) i = (i + 1) & mask;
+            if (!used[i]) {
+                used[i] = true;
+                keys[i] = key;
+                count++;
+            }
+            values[i] = value;
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldKeys.length];
+            used = new boolean[2 * oldKeys.length];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
     // Unit testing (optional; can be ignored by autograder)
     public static void main(String[] args) {
         // Create a randomized queue of strings
@@ -146,5 +357,45 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         StdOut.println("Iteration:");
         for (String s : q)
             StdOut.println(" - " + s);
+
+        // Batch operations
+        q.enqueueAll(new String[] { "E", "F", "G", "H" });
+        StdOut.println("dequeue(3): " + q.dequeue(3));
+        List<String> drained = new ArrayList<>();
+        StdOut.println("drainTo(10) moved " + q.drainTo(drained, 10) + ": " + drained);
+
+        // Parallel stream over the queue through its spliterator
+        RandomizedQueue<Integer> numbers = new RandomizedQueue<>();
+        for (int i = 1; i <= 1_000_000; i++) numbers.enqueue(i);
+        long parallelSum = StreamSupport.stream(numbers.spliterator(), true).mapToLong(Integer::longValue).sum();
+        StdOut.println("parallel sum of 1..1000000: " + parallelSum + " (expect 500000500000)");
+
+        // Benchmark: draining a large queue k items at a time
+        int n = 2_000_000;
+        int k = 64;
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) values[i] = i;
+
+        for (int round = 0; round < 3; round++) {
+            RandomizedQueue<Integer> single = new RandomizedQueue<>();
+            Stopwatch timer = new Stopwatch();
+            for (Integer v : values) single.enqueue(v);
+            List<Integer> sink = new ArrayList<>(k);
+            while (!single.isEmpty()) {
+                sink.clear();
+                for (int i = 0; i < k && !single.isEmpty(); i++) sink.add(single.dequeue());
+            }
+            double one = timer.elapsedTime();
+
+            RandomizedQueue<Integer> batched = new RandomizedQueue<>();
+            timer = new Stopwatch();
+            batched.enqueueAll(values);
+            while (!batched.isEmpty()) {
+                sink.clear();
+                batched.drainTo(sink, k);
+            }
+            double many = timer.elapsedTime();
+            StdOut.println("n = " + n + ", k = " + k + ": enqueue/dequeue " + one + "s, enqueueAll/drainTo " + many + "s");
+        }
     }
 }
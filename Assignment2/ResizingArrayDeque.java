@@ -0,0 +1,190 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A double-ended queue with the same API as Deque, backed by a circular
+ * resizing array instead of a doubly-linked list.
+ * Adding an item does not allocate a node, and iteration walks contiguous
+ * memory. All operations take constant amortized time: the array doubles when
+ * full and halves when a quarter full. Removed slots are nulled out so the
+ * deque never holds on to items it no longer contains.
+ */
+public class ResizingArrayDeque<Item> implements Iterable<Item> {
+    private static final int MIN_CAPACITY = 8;
+
+    // Circular buffer; its length is always a power of two
+    private Item[] items;
+
+    // Index of the first item, and current number of elements in the deque
+    private int head;
+    private int size;
+
+    /**
+     * Iterator class for the deque, iterates from front to end.
+     */
+    private class ResizingArrayDequeIterator implements Iterator<Item> {
+        private int offset; // position of the next item relative to head
+
+        @Override
+        public boolean hasNext() {
+            return offset < size;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException("No more elements");
+            return items[(head + offset++) & (items.length - 1)];
+        }
+    }
+
+    /**
+     * Initializes an empty deque.
+     */
+    @SuppressWarnings("unchecked")
+    public ResizingArrayDeque() {
+        items = (Item[]) new Object[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns true if the deque is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of items in the deque.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an item to the front of the deque.
+     */
+    public void addFirst(Item item) {
+        if (item == null) throw new NullPointerException("Cannot add null to deque");
+        if (size == items.length) resize(2 * items.length);
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size++;
+    }
+
+    /**
+     * Adds an item to the end of the deque.
+     */
+    public void addLast(Item item) {
+        if (item == null) throw new NullPointerException("Cannot add null to deque");
+        if (size == items.length) resize(2 * items.length);
+
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    /**
+     * Removes and returns the item from the front.
+     */
+    public Item removeFirst() {
+        if (isEmpty()) throw new NoSuchElementException("Deque is empty");
+
+        Item item = items[head];
+        items[head] = null; // avoid loitering
+        head = (head + 1) & (items.length - 1);
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Removes and returns the item from the end.
+     */
+    public Item removeLast() {
+        if (isEmpty()) throw new NoSuchElementException("Deque is empty");
+
+        int tail = (head + size - 1) & (items.length - 1);
+        Item item = items[tail];
+        items[tail] = null; // avoid loitering
+        size--;
+        shrinkIfSparse();
+        return item;
+    }
+
+    /**
+     * Returns an iterator over the items in order from front to end.
+     */
+    public Iterator<Item> iterator() {
+        return new ResizingArrayDequeIterator();
+    }
+
+    // Halves the array once it is a quarter full
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size == items.length / 4) resize(items.length / 2);
+    }
+
+    // Moves the items to a new array of the given capacity, unwrapped so that head is 0
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        Item[] copy = (Item[]) new Object[capacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    /**
+     * Unit test and benchmark. Checks the deque against Deque on a random
+     * sequence of operations, then times both on the same workload.
+     * Usage: java ResizingArrayDeque [operations]
+     */
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        // Same random operations on both deques must give the same results
+        Deque<Integer> linked = new Deque<>();
+        ResizingArrayDeque<Integer> array = new ResizingArrayDeque<>();
+        for (int i = 0; i < 100_000; i++) {
+            int op = StdRandom.uniformInt(4);
+            if (op == 0) { linked.addFirst(i); array.addFirst(i); }
+            else if (op == 1) { linked.addLast(i); array.addLast(i); }
+            else if (!linked.isEmpty() && op == 2) {
+                if (!linked.removeFirst().equals(array.removeFirst())) throw new AssertionError("removeFirst");
+            } else if (!linked.isEmpty()) {
+                if (!linked.removeLast().equals(array.removeLast())) throw new AssertionError("removeLast");
+            }
+        }
+        Iterator<Integer> expected = linked.iterator();
+        for (Integer item : array) {
+            if (!item.equals(expected.next())) throw new AssertionError("iterator");
+        }
+        StdOut.println("Deque and ResizingArrayDeque agree on " + array.size() + " items");
+
+        // Benchmark: fill, drain from both ends, and iterate
+        Integer token = 42;
+        Stopwatch timer = new Stopwatch();
+        Deque<Integer> d = new Deque<>();
+        long sum = 0;
+        for (int i = 0; i < operations; i++) {
+            if ((i & 1) == 0) d.addFirst(token); else d.addLast(token);
+        }
+        for (Integer item : d) sum += item;
+        while (!d.isEmpty()) { d.removeFirst(); if (!d.isEmpty()) d.removeLast(); }
+        StdOut.println("Deque:              " + timer.elapsedTime() + "s (" + sum + ")");
+
+        timer = new Stopwatch();
+        ResizingArrayDeque<Integer> r = new ResizingArrayDeque<>();
+        sum = 0;
+        for (int i = 0; i < operations; i++) {
+            if ((i & 1) == 0) r.addFirst(token); else r.addLast(token);
+        }
+        for (Integer item : r) sum += item;
+        while (!r.isEmpty()) { r.removeFirst(); if (!r.isEmpty()) r.removeLast(); }
+        StdOut.println("ResizingArrayDeque: " + timer.elapsedTime() + "s (" + sum + ")");
+    }
+}
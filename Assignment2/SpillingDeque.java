@@ -0,0 +1,532 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A double-ended queue of byte[] records that spills to disk instead of
+ * running out of heap, and survives a restart.
+ *
+ * The deque is kept in three parts, front to back: an in-memory head, a run
+ * of memory-mapped segment files, and an in-memory tail. Each end holds at
+ * most `memoryBytes` of records; when an add would exceed that, the records
+ * nearest the middle are moved to the first or last segment until the end is
+ * half full. Removing from an end takes from its in-memory part, then from the
+ * segments, then from the far end's in-memory part, so the order is always
+ * exactly that of Deque.
+ *
+ * Segment file layout (big-endian): a 32-byte header with magic, version,
+ * sequence number and the [start, end) range of live records, followed by
+ * records framed as [length][bytes][length]. The framing lets records be read
+ * from either end, so one segment can be appended at its end and prepended at
+ * its start. A record is written before the header range that covers it, and
+ * the range is updated with a single 8-byte write. Segments are ordered by
+ * sequence number; only the first and last stay mapped.
+ *
+ * Drained segments are recycled: up to SPARE_SEGMENTS are kept, emptied, and
+ * reused for the next spill; others are deleted.
+ *
+ * Recovery: constructing a SpillingDeque on a directory that already holds
+ * segments restores their records. Files a crash left without a valid header
+ * or record range hold no records and are recycled or deleted. close() spills both in-memory ends first,
+ * so a deque that was closed is restored completely; after a crash the
+ * records still in memory (at most 2 * memoryBytes) are lost.
+ */
+public class SpillingDeque implements Closeable {
+    private static final int MAGIC = 0x53504C44;      // "SPLD"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;              // magic, version, sequence, start, end, padding
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int RANGE_OFFSET = 16;        // start and end, written together
+    private static final int FRAMING = 2 * Integer.BYTES;
+    private static final int SPARE_SEGMENTS = 2;
+    private static final String SUFFIX = ".seg";
+
+    // One segment file; its records live in [start, end)
+    private static final class Segment {
+        final Path path;
+        int capacity;
+        long sequence;
+        int start;
+        int end;
+        MappedByteBuffer buffer; // null while unmapped
+
+        Segment(Path path) {
+            this.path = path;
+        }
+
+        MappedByteBuffer buffer(int size) {
+            if (buffer == null) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    // the mapping stays valid after the channel is closed
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+                    capacity = buffer.capacity();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot map " + path, e);
+                }
+            }
+            return buffer;
+        }
+
+        // Publishes the record range with one aligned 8-byte write
+        void writeRange() {
+            buffer.putLong(RANGE_OFFSET, ((long) start << 32) | (end & 0xFFFFFFFFL));
+        }
+
+        // Flushes and drops the mapping; it is unmapped once collected
+        void release() {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+        }
+
+        boolean isEmpty() {
+            return start >= end;
+        }
+    }
+
+    private final Path directory;
+    private final long memoryBytes;
+    private final int segmentBytes;
+
+    private final ResizingArrayDeque<byte[]> head = new ResizingArrayDeque<>();
+    private final ResizingArrayDeque<byte[]> tail = new ResizingArrayDeque<>();
+    private long headBytes;
+    private long tailBytes;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>(); // front to back
+    private final ArrayDeque<Segment> spares = new ArrayDeque<>();
+    private long diskRecords;
+    private int nextId;
+    private boolean closed;
+
+    /**
+     * Opens a deque in the given directory with 8 MiB of records in memory
+     * at each end and 64 MiB segment files, restoring any records left there.
+     */
+    public SpillingDeque(Path directory) {
+        this(directory, 8L << 20, 64 << 20);
+    }
+
+    /**
+     * Opens a deque in the given directory, restoring any records left there.
+     *
+     * @param memoryBytes  bytes of records kept in memory at each end
+     * @param segmentBytes size of each new segment file
+     * @throws IllegalArgumentException if memoryBytes < 0 or segmentBytes leaves no room for a record
+     * @throws UncheckedIOException if the directory or its segments cannot be read
+     */
+    public SpillingDeque(Path directory, long memoryBytes, int segmentBytes) {
+        if (memoryBytes < 0) throw new IllegalArgumentException("memoryBytes must be >= 0");
+        if (segmentBytes <= HEADER + FRAMING) throw new IllegalArgumentException("segmentBytes too small");
+
+        this.directory = directory;
+        this.memoryBytes = memoryBytes;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open " + directory, e);
+        }
+    }
+
+    /**
+     * Returns true if the deque is empty.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of records in the deque, in memory and on disk.
+     */
+    public long size() {
+        return head.size() + diskRecords + tail.size();
+    }
+
+    /**
+     * Returns the number of records currently held in segment files.
+     */
+    public long spilled() {
+        return diskRecords;
+    }
+
+    /**
+     * Adds a record to the front of the deque.
+     *
+     * @throws NullPointerException if record is null
+     * @throws IllegalArgumentException if record does not fit in a segment
+     */
+    public void addFirst(byte[] record) {
+        checkRecord(record);
+
+        // Make room by moving the head's innermost records to the front segment
+        long limit = memoryBytes / 2;
+        if (headBytes + record.length > memoryBytes) {
+            while (!head.isEmpty() && headBytes + record.length > limit) {
+                byte[] moved = head.removeLast();
+                headBytes -= moved.length;
+                prepend(moved);
+            }
+        }
+        if (headBytes + record.length > memoryBytes) {
+            prepend(record); // head is empty, so the record goes straight to disk
+        } else {
+            head.addFirst(record);
+            headBytes += record.length;
+        }
+    }
+
+    /**
+     * Adds a record to the end of the deque.
+     *
+     * @throws NullPointerException if record is null
+     * @throws IllegalArgumentException if record does not fit in a segment
+     */
+    public void addLast(byte[] record) {
+        checkRecord(record);
+
+        // Make room by moving the tail's innermost records to the last segment
+        long limit = memoryBytes / 2;
+        if (tailBytes + record.length > memoryBytes) {
+            while (!tail.isEmpty() && tailBytes + record.length > limit) {
+                byte[] moved = tail.removeFirst();
+                tailBytes -= moved.length;
+                append(moved);
+            }
+        }
+        if (tailBytes + record.length > memoryBytes) {
+            append(record); // tail is empty, so the record goes straight to disk
+        } else {
+            tail.addLast(record);
+            tailBytes += record.length;
+        }
+    }
+
+    /**
+     * Removes and returns the record at the front.
+     */
+    public byte[] removeFirst() {
+        checkOpen();
+        if (!head.isEmpty()) {
+            byte[] record = head.removeFirst();
+            headBytes -= record.length;
+            return record;
+        }
+        if (diskRecords > 0) return readFirst();
+        if (!tail.isEmpty()) {
+            byte[] record = tail.removeFirst();
+            tailBytes -= record.length;
+            return record;
+        }
+        throw new NoSuchElementException("Deque is empty");
+    }
+
+    /**
+     * Removes and returns the record at the end.
+     */
+    public byte[] removeLast() {
+        checkOpen();
+        if (!tail.isEmpty()) {
+            byte[] record = tail.removeLast();
+            tailBytes -= record.length;
+            return record;
+        }
+        if (diskRecords > 0) return readLast();
+        if (!head.isEmpty()) {
+            byte[] record = head.removeLast();
+            headBytes -= record.length;
+            return record;
+        }
+        throw new NoSuchElementException("Deque is empty");
+    }
+
+    /**
+     * Forces the mapped segments to disk. Records still in memory are not written.
+     */
+    public void flush() {
+        checkOpen();
+        for (Segment segment : segments) {
+            if (segment.buffer != null) segment.buffer.force();
+        }
+    }
+
+    /**
+     * Spills both in-memory ends to the segment files and releases them, so
+     * that a deque later opened on the same directory holds the same records
+     * in the same order.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        while (!head.isEmpty()) prepend(head.removeLast());
+        while (!tail.isEmpty()) append(tail.removeFirst());
+        headBytes = 0;
+        tailBytes = 0;
+        for (Segment segment : segments) segment.release();
+        for (Segment segment : spares) segment.release();
+        closed = true;
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Deque is closed");
+    }
+
+    private void checkRecord(byte[] record) {
+        checkOpen();
+        if (record == null) throw new NullPointerException("Cannot add null to deque");
+        if (record.length > segmentBytes - HEADER - FRAMING)
+            throw new IllegalArgumentException("Record of " + record.length + " bytes does not fit in a segment");
+    }
+
+    // Writes a record after the last one on disk
+    private void append(byte[] record) {
+        int length = record.length + FRAMING;
+        Segment last = segments.peekLast();
+        if (last == null || last.buffer(segmentBytes).capacity() - last.end < length) {
+            Segment segment = obtainSegment(last == null ? 0 : last.sequence + 1, false);
+            if (last != null && last != segments.peekFirst()) last.release();
+            segments.addLast(segment);
+            last = segment;
+        }
+
+        MappedByteBuffer buffer = last.buffer(segmentBytes);
+        writeRecord(buffer, last.end, record);
+        last.end += length;
+        last.writeRange();
+        diskRecords++;
+    }
+
+    // Writes a record before the first one on disk
+    private void prepend(byte[] record) {
+        int length = record.length + FRAMING;
+        Segment first = segments.peekFirst();
+        if (first == null || first.start - HEADER < length) {
+            Segment segment = obtainSegment(first == null ? 0 : first.sequence - 1, true);
+            if (first != null && first != segments.peekLast()) first.release();
+            segments.addFirst(segment);
+            first = segment;
+        }
+
+        MappedByteBuffer buffer = first.buffer(segmentBytes);
+        first.start -= length;
+        writeRecord(buffer, first.start, record);
+        first.writeRange();
+        diskRecords++;
+    }
+
+    private byte[] readFirst() {
+        Segment first = segments.peekFirst();
+        MappedByteBuffer buffer = first.buffer(segmentBytes);
+        byte[] record = new byte[buffer.getInt(first.start)];
+        buffer.get(first.start + Integer.BYTES, record);
+        first.start += record.length + FRAMING;
+        first.writeRange();
+        diskRecords--;
+        if (first.isEmpty()) retire(segments.removeFirst());
+        return record;
+    }
+
+    private byte[] readLast() {
+        Segment last = segments.peekLast();
+        MappedByteBuffer buffer = last.buffer(segmentBytes);
+        int length = buffer.getInt(last.end - Integer.BYTES);
+        byte[] record = new byte[length];
+        last.end -= length + FRAMING;
+        buffer.get(last.end + Integer.BYTES, record);
+        last.writeRange();
+        diskRecords--;
+        if (last.isEmpty()) retire(segments.removeLast());
+        return record;
+    }
+
+    private static void writeRecord(ByteBuffer buffer, int offset, byte[] record) {
+        buffer.putInt(offset, record.length);
+        buffer.put(offset + Integer.BYTES, record);
+        buffer.putInt(offset + Integer.BYTES + record.length, record.length);
+    }
+
+    // Returns an empty segment with the given sequence number, set up to be
+    // filled from its end if it is for prepending, or from its start otherwise
+    private Segment obtainSegment(long sequence, boolean prepending) {
+        Segment segment = spares.pollFirst();
+        while (segment != null && segment.capacity < segmentBytes) {
+            delete(segment); // left by a run with smaller segments
+            segment = spares.pollFirst();
+        }
+        if (segment == null) segment = new Segment(directory.resolve(fileName(nextId++)));
+
+        MappedByteBuffer buffer = segment.buffer(segmentBytes);
+        int position = prepending ? segment.capacity : HEADER;
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(Integer.BYTES, VERSION);
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+        segment.sequence = sequence;
+        segment.start = position;
+        segment.end = position;
+        segment.writeRange();
+        buffer.force(0, HEADER); // a later crash must not leave this segment without a header
+        return segment;
+    }
+
+    // Keeps a drained segment for reuse, or deletes it if enough are kept
+    private void retire(Segment segment) {
+        if (spares.size() < SPARE_SEGMENTS) {
+            segment.release();
+            spares.addLast(segment);
+        } else {
+            delete(segment);
+        }
+    }
+
+    private static void delete(Segment segment) {
+        segment.buffer = null;
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete " + segment.path, e);
+        }
+    }
+
+    private static String fileName(int id) {
+        return "segment-" + id + SUFFIX;
+    }
+
+    // Rebuilds the segment list from the files in the directory
+    private void recover() throws IOException {
+        List<Segment> live = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*" + SUFFIX)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                int id;
+                try {
+                    id = Integer.parseInt(name.substring("segment-".length(), name.length() - SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue; // not a name this class creates
+                }
+                nextId = Math.max(nextId, id + 1);
+
+                // A crash can leave a file too short for a header, or one whose
+                // header was never written: it holds no records, so drop it
+                Segment segment = new Segment(path);
+                MappedByteBuffer buffer = segment.buffer(0);
+                if (buffer.capacity() < HEADER) {
+                    delete(segment);
+                    continue;
+                }
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                    retire(segment);
+                    continue;
+                }
+
+                segment.sequence = buffer.getLong(SEQUENCE_OFFSET);
+                long range = buffer.getLong(RANGE_OFFSET);
+                segment.start = (int) (range >>> 32);
+                segment.end = (int) range;
+                long records = countRecords(segment);
+                if (records > 0) {
+                    diskRecords += records;
+                    live.add(segment);
+                } else {
+                    retire(segment);
+                }
+            }
+        }
+
+        live.sort(Comparator.comparingLong(s -> s.sequence));
+        for (int i = 0; i < live.size(); i++) {
+            if (i > 0 && i < live.size() - 1) live.get(i).release();
+            segments.addLast(live.get(i));
+        }
+    }
+
+    // Counts the records in [start, end), or returns 0 if the range or framing is invalid
+    private static long countRecords(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        if (segment.start < HEADER || segment.end > buffer.capacity() || segment.start >= segment.end) return 0;
+
+        long count = 0;
+        for (int at = segment.start; at < segment.end; count++) {
+            int length = buffer.getInt(at);
+            long next = (long) at + length + FRAMING;
+            if (length < 0 || next > segment.end || buffer.getInt((int) next - Integer.BYTES) != length) return 0;
+            at = (int) next;
+        }
+        return count;
+    }
+
+    /**
+     * Test client: runs random operations on a SpillingDeque with small
+     * in-memory ends and segments, checking every record against a
+     * ResizingArrayDeque, then closes and reopens it and checks that the
+     * records survived. Uses (and finally deletes) a temporary directory.
+     * Usage: java SpillingDeque [operations]
+     */
+    public static void main(String[] args) throws IOException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path directory = Files.createTempDirectory("spilling-deque");
+
+        ResizingArrayDeque<byte[]> expected = new ResizingArrayDeque<>();
+        SpillingDeque deque = new SpillingDeque(directory, 4096, 16384);
+        int counter = 0;
+        long maxSpilled = 0;
+        for (int i = 0; i < operations; i++) {
+            int op = StdRandom.uniformInt(10);
+            if (op < 3 || deque.isEmpty() && op < 6) {
+                byte[] record = record(counter++);
+                deque.addFirst(record);
+                expected.addFirst(record);
+            } else if (op < 6 || deque.isEmpty()) {
+                byte[] record = record(counter++);
+                deque.addLast(record);
+                expected.addLast(record);
+            } else if (op < 8) {
+                check(expected.removeFirst(), deque.removeFirst());
+            } else {
+                check(expected.removeLast(), deque.removeLast());
+            }
+            maxSpilled = Math.max(maxSpilled, deque.spilled());
+        }
+        StdOut.println(operations + " operations matched ResizingArrayDeque; up to " + maxSpilled + " records on disk");
+
+        long size = deque.size();
+        deque.close();
+        deque = new SpillingDeque(directory, 4096, 16384);
+        if (deque.size() != size) throw new AssertionError("recovered " + deque.size() + " of " + size + " records");
+        while (!expected.isEmpty()) check(expected.removeFirst(), deque.removeFirst());
+        StdOut.println("all " + size + " records recovered in order after reopening");
+        deque.close();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path path : files) Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+
+    private static byte[] record(int value) {
+        byte[] record = new byte[1 + StdRandom.uniformInt(200)];
+        for (int i = 0; i < record.length; i++) record[i] = (byte) (value + i);
+        return record;
+    }
+
+    private static void check(byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) throw new AssertionError("record mismatch");
+    }
+}
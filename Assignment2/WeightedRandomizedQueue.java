@@ -0,0 +1,305 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A randomized queue where each item has a positive weight, and dequeue() and
+ * sample() choose an item with probability proportional to its weight.
+ *
+ * Items are kept in a resizing array exactly like RandomizedQueue, and a
+ * removal moves the last item into the freed slot. Alongside the array, a
+ * complete binary sum tree has one leaf per slot, and each internal node holds
+ * the sum of its two children, so choosing an item by weight, removing it and
+ * changing a weight all take O(log n) time. A weight change sets its leaf and
+ * recomputes the sums on the path to the root from their children rather than
+ * adding a difference, so rounding error does not build up: weights of very
+ * different magnitudes can be set and reset without cancelling each other.
+ *
+ * enqueue() returns an Entry, a handle that follows its item as it moves
+ * between slots and is used to change the item's weight later.
+ */
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+
+    /**
+     * Handle to an item in the queue and its current weight.
+     */
+    public static final class Entry<Item> {
+        private final Item item;
+        private double weight;
+        private int index; // slot in the queue's array, or -1 once removed
+
+        private Entry(Item item, double weight, int index) {
+            this.item = item;
+            this.weight = weight;
+            this.index = index;
+        }
+
+        public Item item() {
+            return item;
+        }
+
+        public double weight() {
+            return weight;
+        }
+    }
+
+    // Entries in slots [0, size)
+    private Entry<Item>[] entries;
+
+    // Sum tree over the slots, 1-based: slot i is leaf entries.length + i,
+    // node k has children 2k and 2k + 1, and tree[1] is the total weight.
+    // Leaves of empty slots are exactly 0. Its length is 2 * entries.length.
+    private double[] tree;
+
+    // Number of items currently in the queue
+    private int size;
+
+    // Number of changes, so iterators can detect modification
+    private int modCount;
+
+    // Constructor to create an empty weighted randomized queue
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public WeightedRandomizedQueue() {
+        entries = (Entry<Item>[]) new Entry[2];
+        tree = new double[4];
+    }
+
+    // Returns true if the queue is empty
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the number of items currently in the queue
+    public int size() {
+        return size;
+    }
+
+    // Returns the sum of the weights of all items
+    public double totalWeight() {
+        return tree[1];
+    }
+
+    /**
+     * Adds an item with the given weight and returns its handle.
+     *
+     * @throws IllegalArgumentException if item is null or weight is not positive and finite
+     */
+    public Entry<Item> enqueue(Item item, double weight) {
+        if (item == null)
+            throw new IllegalArgumentException("Cannot enqueue null item");
+        checkWeight(weight);
+
+        if (size == entries.length)
+            resize(2 * entries.length);
+
+        Entry<Item> entry = new Entry<>(item, weight, size);
+        entries[size] = entry;
+        set(tree, size, weight);
+        size++;
+        modCount++;
+        return entry;
+    }
+
+    /**
+     * Changes the weight of an item still in the queue.
+     *
+     * @throws IllegalArgumentException if the entry is not in this queue or
+     *         weight is not positive and finite
+     */
+    public void setWeight(Entry<Item> entry, double weight) {
+        checkWeight(weight);
+        if (entry == null || entry.index < 0 || entry.index >= size || entries[entry.index] != entry)
+            throw new IllegalArgumentException("Entry is not in this queue");
+
+        set(tree, entry.index, weight);
+        entry.weight = weight;
+        modCount++;
+    }
+
+    // Removes and returns an item chosen with probability proportional to its weight
+    public Item dequeue() {
+        if (isEmpty())
+            throw new NoSuchElementException("Queue is empty");
+
+        int index = pick(tree);
+        Entry<Item> entry = entries[index];
+
+        // Move the last entry into the slot being removed (to fill the gap)
+        Entry<Item> last = entries[size - 1];
+        if (index != size - 1) {
+            set(tree, index, last.weight);
+            entries[index] = last;
+            last.index = index;
+        }
+        set(tree, size - 1, 0.0);
+        entries[size - 1] = null; // avoid loitering
+        entry.index = -1;
+
+        size--;
+        modCount++;
+
+        // Shrink the array if it's too empty to save space
+        if (size > 0 && size == entries.length / 4)
+            resize(entries.length / 2);
+
+        return entry.item;
+    }
+
+    // Returns (but does not remove) an item chosen with probability proportional to its weight
+    public Item sample() {
+        if (isEmpty())
+            throw new NoSuchElementException("Queue is empty");
+
+        return entries[pick(tree)].item;
+    }
+
+    /**
+     * Returns an iterator over the items in weighted random order: each next()
+     * picks one of the items not yet returned with probability proportional to
+     * its weight. Construction copies the array and tree in O(n) and each
+     * next() takes O(log n). The queue must not be modified while iterating.
+     */
+    public Iterator<Item> iterator() {
+        return new WeightedIterator();
+    }
+
+    private static void checkWeight(double weight) {
+        if (!(weight > 0) || Double.isInfinite(weight))
+            throw new IllegalArgumentException("Weight must be positive and finite: " + weight);
+    }
+
+    // Resizes the array to the given capacity and rebuilds the tree from the weights
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void resize(int capacity) {
+        Entry<Item>[] copy = (Entry<Item>[]) new Entry[capacity];
+        System.arraycopy(entries, 0, copy, 0, size);
+        entries = copy;
+
+        tree = new double[2 * capacity];
+        for (int i = 0; i < size; i++) tree[capacity + i] = entries[i].weight;
+        for (int k = capacity - 1; k > 0; k--) tree[k] = tree[2 * k] + tree[2 * k + 1];
+    }
+
+    // Sets the weight of slot index and recomputes the sums above it from their children
+    private static void set(double[] tree, int index, double weight) {
+        int k = tree.length / 2 + index;
+        tree[k] = weight;
+        for (k /= 2; k > 0; k /= 2) tree[k] = tree[2 * k] + tree[2 * k + 1];
+    }
+
+    // Returns a slot chosen with probability proportional to its weight, by
+    // walking down from the root with a random target in [0, total). Rounding
+    // can make the target reach past a left subtree into an empty right one,
+    // so the walk only goes right into a subtree with positive weight, and
+    // always ends at a non-empty slot.
+    private static int pick(double[] tree) {
+        double target = StdRandom.uniformDouble() * tree[1];
+        int leaves = tree.length / 2;
+        int k = 1;
+        while (k < leaves) {
+            double left = tree[2 * k];
+            if (target < left || tree[2 * k + 1] <= 0.0) {
+                k = 2 * k;
+            } else {
+                target -= left;
+                k = 2 * k + 1;
+            }
+        }
+        return k - leaves;
+    }
+
+    // Iterator that samples without replacement from a private copy of the array and tree
+    private class WeightedIterator implements Iterator<Item> {
+        private final Entry<Item>[] order = entries.clone();
+        private final double[] weights = tree.clone();
+        private final int expectedModCount = modCount;
+        private int remaining = size;
+
+        // Check if there are more elements in the iterator
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        // Return the next item from the iterator
+        public Item next() {
+            if (!hasNext())
+                throw new NoSuchElementException("No more items");
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException("Queue modified during iteration");
+
+            int index = pick(weights);
+            Entry<Item> entry = order[index];
+            Entry<Item> last = order[remaining - 1];
+            if (index != remaining - 1) {
+                set(weights, index, last.weight);
+                order[index] = last;
+            }
+            set(weights, remaining - 1, 0.0);
+            remaining--;
+            return entry.item;
+        }
+
+        // Remove is unsupported in this iterator
+        public void remove() {
+            throw new UnsupportedOperationException("remove() not supported");
+        }
+    }
+
+    /**
+     * Unit test: checks that sample() and dequeue() follow the weights and
+     * that a weight update takes effect.
+     */
+    public static void main(String[] args) {
+        WeightedRandomizedQueue<String> q = new WeightedRandomizedQueue<>();
+        q.enqueue("A", 1.0);
+        q.enqueue("B", 2.0);
+        Entry<String> c = q.enqueue("C", 3.0);
+        q.enqueue("D", 4.0);
+        StdOut.println("total weight: " + q.totalWeight());
+
+        int trials = 1_000_000;
+        int[] counts = new int[4];
+        for (int i = 0; i < trials; i++) counts[q.sample().charAt(0) - 'A']++;
+        StdOut.printf("sample frequencies (expect 0.1 0.2 0.3 0.4): %.3f %.3f %.3f %.3f%n",
+                      counts[0] / (double) trials, counts[1] / (double) trials,
+                      counts[2] / (double) trials, counts[3] / (double) trials);
+
+        q.setWeight(c, 13.0);
+        counts = new int[4];
+        for (int i = 0; i < trials; i++) counts[q.sample().charAt(0) - 'A']++;
+        StdOut.printf("after setWeight(C, 13) (expect 0.05 0.1 0.65 0.2): %.3f %.3f %.3f %.3f%n",
+                      counts[0] / (double) trials, counts[1] / (double) trials,
+                      counts[2] / (double) trials, counts[3] / (double) trials);
+
+        // Probability of each item being dequeued first, from fresh queues
+        counts = new int[4];
+        for (int i = 0; i < trials / 10; i++) {
+            WeightedRandomizedQueue<String> fresh = new WeightedRandomizedQueue<>();
+            for (int k = 0; k < 4; k++) fresh.enqueue(String.valueOf((char) ('A' + k)), k + 1);
+            counts[fresh.dequeue().charAt(0) - 'A']++;
+        }
+        StdOut.printf("first dequeue frequencies (expect 0.1 0.2 0.3 0.4): %.3f %.3f %.3f %.3f%n",
+                      counts[0] / (trials / 10.0), counts[1] / (trials / 10.0),
+                      counts[2] / (trials / 10.0), counts[3] / (trials / 10.0));
+
+        StdOut.print("Iteration:");
+        for (String s : q) StdOut.print(" " + s);
+        StdOut.println();
+
+        StdOut.print("Dequeue all:");
+        while (!q.isEmpty()) StdOut.print(" " + q.dequeue());
+        StdOut.println();
+
+        // Weights of very different magnitudes must not cancel when one is reset
+        WeightedRandomizedQueue<String> mixed = new WeightedRandomizedQueue<>();
+        Entry<String> huge = mixed.enqueue("A", 1e17);
+        mixed.enqueue("B", 1.0);
+        mixed.setWeight(huge, 1.0);
+        int picksOfA = 0;
+        for (int i = 0; i < 100_000; i++) if (mixed.sample().equals("A")) picksOfA++;
+        StdOut.println("after setWeight(A, 1e17 -> 1): total " + mixed.totalWeight()
+                       + " (expect 2.0), A sampled " + picksOfA + " of 100000 (expect ~50000)");
+    }
+}
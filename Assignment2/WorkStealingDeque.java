@@ -0,0 +1,204 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Chase–Lev work-stealing deque, meant as the per-worker task queue of a
+ * scheduler.
+ * One owner thread pushes and pops items at the bottom without locking;
+ * any number of thief threads steal items from the top with a CAS. The only
+ * contended step is when owner and thieves race for the last item, which is
+ * settled by the same CAS.
+ *
+ * Items live in a circular array that only the owner grows. An item is written
+ * to its slot before the volatile write that publishes the new bottom, so a
+ * thief that reads bottom also sees the item. Stolen slots are not cleared
+ * (a thief cannot tell whether the owner has reused the slot), so up to one
+ * array's worth of stolen items may stay reachable until overwritten.
+ */
+public class WorkStealingDeque<Item> {
+    private static final int INITIAL_CAPACITY = 32;
+
+    // Circular buffer; its length is always a power of two. Only the owner replaces it.
+    private volatile Object[] items;
+
+    // Index of the next item to steal; advanced by CAS
+    private final AtomicLong top = new AtomicLong();
+
+    // Index of the next free slot at the owner's end; written only by the owner
+    private volatile long bottom;
+
+    /**
+     * Initializes an empty deque.
+     */
+    public WorkStealingDeque() {
+        items = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns true if the deque appeared empty at some point during the call.
+     */
+    public boolean isEmpty() {
+        return bottom - top.get() <= 0;
+    }
+
+    /**
+     * Returns the number of items, which is only a snapshot while thieves are active.
+     */
+    public int size() {
+        long size = bottom - top.get();
+        return size < 0 ? 0 : (int) size;
+    }
+
+    /**
+     * Adds an item at the bottom. Must only be called by the owner thread.
+     */
+    public void push(Item item) {
+        if (item == null) throw new NullPointerException("Cannot add null to deque");
+
+        long b = bottom;
+        long t = top.get();
+        Object[] a = items;
+        if (b - t >= a.length) a = grow(a, t, b);
+        a[(int) b & (a.length - 1)] = item;
+        bottom = b + 1; // publishes the item to thieves
+    }
+
+    /**
+     * Removes and returns the item at the bottom, or null if the deque is
+     * empty. Must only be called by the owner thread.
+     */
+    @SuppressWarnings("unchecked")
+    public Item pop() {
+        long b = bottom - 1;
+        Object[] a = items;
+        bottom = b; // reserve the bottom item before looking at top
+        long t = top.get();
+
+        if (t > b) {
+            bottom = b + 1; // deque was empty
+            return null;
+        }
+
+        int slot = (int) b & (a.length - 1);
+        Item item = (Item) a[slot];
+        if (t < b) {
+            a[slot] = null; // more than one item left, so no thief can reach this one
+            return item;
+        }
+
+        // Last item: race the thieves for it
+        if (!top.compareAndSet(t, t + 1)) item = null;
+        bottom = b + 1;
+        return item;
+    }
+
+    /**
+     * Removes and returns the item at the top, or null if the deque is empty
+     * or another thread took that item first. Safe to call from any thread.
+     */
+    @SuppressWarnings("unchecked")
+    public Item steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) return null;
+
+        Object[] a = items;
+        Item item = (Item) a[(int) t & (a.length - 1)];
+        if (!top.compareAndSet(t, t + 1)) return null; // lost the race
+        return item;
+    }
+
+    // Copies the live items [t, b) into an array twice as large and publishes it
+    private Object[] grow(Object[] a, long t, long b) {
+        Object[] copy = new Object[2 * a.length];
+        for (long i = t; i < b; i++) {
+            copy[(int) i & (copy.length - 1)] = a[(int) i & (a.length - 1)];
+        }
+        items = copy;
+        return copy;
+    }
+
+    /**
+     * Multi-threaded stress test and throughput benchmark.
+     * The owner pushes `tasks` items and pops a quarter of them back while
+     * `thieves` threads steal; every item must be taken exactly once. The same
+     * workload is then run on a ResizingArrayDeque guarded by one lock.
+     * Usage: java WorkStealingDeque [tasks] [thieves]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int thieves = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Integer[] work = new Integer[tasks];
+        for (int i = 0; i < tasks; i++) work[i] = i;
+        Thread[] threads = new Thread[thieves];
+
+        // Lock-free deque
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        AtomicIntegerArray taken = new AtomicIntegerArray(tasks);
+        AtomicBoolean drained = new AtomicBoolean();
+        Stopwatch timer = new Stopwatch();
+        for (int k = 0; k < thieves; k++) {
+            threads[k] = new Thread(() -> {
+                while (!drained.get() || !deque.isEmpty()) {
+                    Integer item = deque.steal();
+                    if (item != null) taken.incrementAndGet(item);
+                }
+            });
+            threads[k].start();
+        }
+        for (int i = 0; i < tasks; i++) {
+            deque.push(work[i]);
+            if ((i & 3) == 0) {
+                Integer item = deque.pop();
+                if (item != null) taken.incrementAndGet(item);
+            }
+        }
+        for (Integer item = deque.pop(); item != null; item = deque.pop()) {
+            taken.incrementAndGet(item);
+        }
+        drained.set(true);
+        for (Thread thread : threads) thread.join();
+        double lockFree = timer.elapsedTime();
+
+        for (int i = 0; i < tasks; i++) {
+            if (taken.get(i) != 1) throw new AssertionError("item " + i + " taken " + taken.get(i) + " times");
+        }
+        StdOut.println("every item taken exactly once");
+        StdOut.println("WorkStealingDeque:               " + lockFree + "s, " + (long) (tasks / lockFree) + " items/s");
+
+        // Same workload on a ResizingArrayDeque guarded by one lock
+        ResizingArrayDeque<Integer> locked = new ResizingArrayDeque<>();
+        AtomicBoolean lockedDrained = new AtomicBoolean();
+        timer = new Stopwatch();
+        for (int k = 0; k < thieves; k++) {
+            threads[k] = new Thread(() -> {
+                while (!lockedDrained.get()) {
+                    synchronized (locked) {
+                        if (!locked.isEmpty()) locked.removeFirst();
+                    }
+                }
+            });
+            threads[k].start();
+        }
+        for (int i = 0; i < tasks; i++) {
+            synchronized (locked) {
+                locked.addLast(work[i]);
+                if ((i & 3) == 0) locked.removeLast();
+            }
+        }
+        while (true) {
+            synchronized (locked) {
+                if (locked.isEmpty()) break;
+                locked.removeLast();
+            }
+        }
+        lockedDrained.set(true);
+        for (Thread thread : threads) thread.join();
+        double withLock = timer.elapsedTime();
+        StdOut.println("synchronized ResizingArrayDeque: " + withLock + "s, " + (long) (tasks / withLock) + " items/s");
+    }
+}
@@ -2,7 +2,9 @@ import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public final class BruteCollinearPoints {
 
@@ -16,8 +18,7 @@ public final class BruteCollinearPoints {
 
         int n = inputPoints.length;
         Point[] sortedPoints = inputPoints.clone();
-        LineSegment[] tempSegments = new LineSegment[n * n];
-        int totalSegments = 0;
+        List<LineSegment> segments = new ArrayList<>();
 
         Arrays.sort(sortedPoints);
 
@@ -27,32 +28,35 @@ public final class BruteCollinearPoints {
                 throw new IllegalArgumentException();
         }
 
-        // Try every combination of 4 points
+        // Coordinates as parallel arrays, in sorted order
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = sortedPoints[i].x();
+            ys[i] = sortedPoints[i].y();
+        }
+
+        // Try every combination of 4 points, with the slopes from the first
+        // point precomputed so the inner loops only compare doubles
+        double[] slopes = new double[n];
         for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                slopes[j] = Point.slope(xs[i], ys[i], xs[j], ys[j]);
+            }
+
             for (int j = i + 1; j < n; j++) {
                 for (int k = j + 1; k < n; k++) {
+                    if (slopes[j] != slopes[k]) continue;
                     for (int l = k + 1; l < n; l++) {
-                        Point p1 = sortedPoints[i];
-                        Point p2 = sortedPoints[j];
-                        Point p3 = sortedPoints[k];
-                        Point p4 = sortedPoints[l];
-
-                        double slope1 = p1.slopeTo(p2);
-                        double slope2 = p1.slopeTo(p3);
-                        double slope3 = p1.slopeTo(p4);
-
-                        if (slope1 == slope2 && slope2 == slope3) {
-                            tempSegments[totalSegments++] = new LineSegment(p1, p4);
+                        if (slopes[k] == slopes[l]) {
+                            segments.add(new LineSegment(sortedPoints[i], sortedPoints[l]));
                         }
                     }
                 }
             }
         }
 
-        foundSegments = new LineSegment[totalSegments];
-        for (int i = 0; i < totalSegments; i++) {
-            foundSegments[i] = tempSegments[i];
-        }
+        foundSegments = segments.toArray(new LineSegment[0]);
     }
 
     // Returns the number of line segments
@@ -1,74 +1,177 @@
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.In;
 
 public final class FastCollinearPoints {
 
+    // Ranges of origins handed out per worker thread, so uneven ranges balance out
+    private static final int RANGES_PER_THREAD = 4;
+
+    // Subarrays this small are insertion-sorted
+    private static final int INSERTION_SORT_CUTOFF = 12;
+
     private final LineSegment[] foundSegments;
 
     // finds all line segments containing 4 or more collinear points
     public FastCollinearPoints(Point[] inputPoints) {
+        this(inputPoints, 1);
+    }
+
+    // finds all line segments containing 4 or more collinear points, splitting
+    // the origins over the given number of threads. Each range of origins is
+    // scanned with its own scratch arrays, and the ranges' segments
+    // are concatenated in origin order, so the result is exactly that of the
+    // single-threaded constructor.
+    public FastCollinearPoints(Point[] inputPoints, int threads) {
         if (inputPoints == null) throw new IllegalArgumentException();
         for (Point p : inputPoints)
             if (p == null) throw new IllegalArgumentException();
+        if (threads <= 0) throw new IllegalArgumentException("Number of threads must be > 0");
 
         int n = inputPoints.length;
-        Point[] sortedPoints = inputPoints.clone();
-        Point[] originalOrder;
-        int totalSegments = 0;
-        double currentSlope;
-        Point origin;
-        LineSegment[] tempSegments = new LineSegment[n * n];
-
-        Arrays.sort(sortedPoints);
-        originalOrder = sortedPoints.clone();  // preserve original point order
+        Point[] originalOrder = inputPoints.clone();
+        Arrays.sort(originalOrder);  // natural order, shared read-only by all workers
 
         // check for duplicate points
         for (int i = 0; i < n - 1; i++) {
-            if (sortedPoints[i].compareTo(sortedPoints[i + 1]) == 0)
+            if (originalOrder[i].compareTo(originalOrder[i + 1]) == 0)
                 throw new IllegalArgumentException();
         }
 
+        // coordinates as parallel arrays, in natural order
+        int[] xs = new int[n];
+        int[] ys = new int[n];
         for (int i = 0; i < n; i++) {
-            origin = originalOrder[i];
+            xs[i] = originalOrder[i].x();
+            ys[i] = originalOrder[i].y();
+        }
 
-            Arrays.sort(sortedPoints);
-            Arrays.sort(sortedPoints, origin.slopeOrder());
+        if (threads == 1 || n < 2 * threads) {
+            foundSegments = findSegments(originalOrder, xs, ys, 0, n).toArray(new LineSegment[0]);
+            return;
+        }
 
-            int j = 0;
-            int collinearCount;
+        int ranges = threads * RANGES_PER_THREAD;
+        List<Callable<List<LineSegment>>> tasks = new ArrayList<>(ranges);
+        for (int r = 0; r < ranges; r++) {
+            int from = (int) ((long) n * r / ranges);
+            int to = (int) ((long) n * (r + 1) / ranges);
+            tasks.add(() -> findSegments(originalOrder, xs, ys, from, to));
+        }
 
-            while (j < n - 2) {
-                currentSlope = origin.slopeTo(sortedPoints[j]);
-                collinearCount = 1;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<LineSegment> merged = new ArrayList<>();
+            for (Future<List<LineSegment>> result : pool.invokeAll(tasks)) {
+                merged.addAll(result.get());
+            }
+            foundSegments = merged.toArray(new LineSegment[0]);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while finding segments", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-                while (j + collinearCount < n &&
-                        currentSlope == origin.slopeTo(sortedPoints[j + collinearCount])) {
-                    collinearCount++;
-                }
+    // Finds the segments whose smallest point is one of originalOrder[from, to).
+    // Works on the coordinates in xs/ys (indexed like originalOrder) with its
+    // own scratch arrays: for each origin, the slopes to all points go into a
+    // double[], which is sorted together with an int[] of point indices by a
+    // primitive quicksort, so no comparator or Point method is called in the
+    // inner loop. Within a run of equal slopes the natural order of the points
+    // is their index order, so the run's smallest and largest points are its
+    // smallest and largest indices.
+    private static List<LineSegment> findSegments(Point[] originalOrder, int[] xs, int[] ys, int from, int to) {
+        int n = xs.length;
+        double[] slopes = new double[n];
+        int[] order = new int[n];
+        List<LineSegment> segments = new ArrayList<>();
+
+        for (int i = from; i < to; i++) {
+            int x = xs[i];
+            int y = ys[i];
+            for (int j = 0; j < n; j++) {
+                slopes[j] = Point.slope(x, y, xs[j], ys[j]);
+                order[j] = j;
+            }
+            sortBySlope(slopes, order, 0, n - 1);
 
-                collinearCount--;
+            int j = 0;
+            while (j < n) {
+                int end = j + 1;
+                int smallest = order[j];
+                int largest = order[j];
+                while (end < n && slopes[end] == slopes[j]) {
+                    smallest = Math.min(smallest, order[end]);
+                    largest = Math.max(largest, order[end]);
+                    end++;
+                }
 
-                if (collinearCount >= 2) {
-                    if (origin.compareTo(sortedPoints[j]) < 0 &&
-                        origin.compareTo(sortedPoints[j + collinearCount]) < 0) {
-                        tempSegments[totalSegments] = new LineSegment(origin, sortedPoints[j + collinearCount]);
-                        totalSegments++;
-                    }
-                    j += collinearCount;
+                // keep the segment only from its smallest point, so it is maximal and found once
+                if (end - j >= 3 && smallest > i) {
+                    segments.add(new LineSegment(originalOrder[i], originalOrder[largest]));
                 }
+                j = end;
+            }
+        }
+        return segments;
+    }
 
-                j++;
+    // Sorts slopes[lo..hi] in ascending order, applying the same swaps to
+    // order[lo..hi]: 3-way quicksort with a median-of-three pivot, which puts
+    // each run of equal slopes in place in one partitioning pass
+    private static void sortBySlope(double[] slopes, int[] order, int lo, int hi) {
+        while (hi - lo >= INSERTION_SORT_CUTOFF) {
+            double pivot = median(slopes[lo], slopes[(lo + hi) >>> 1], slopes[hi]);
+            int lt = lo;
+            int gt = hi;
+            int i = lo;
+            while (i <= gt) {
+                double slope = slopes[i];
+                if (slope < pivot) swap(slopes, order, lt++, i++);
+                else if (slope > pivot) swap(slopes, order, i, gt--);
+                else i++;
+            }
+
+            // recurse on the smaller side and loop on the larger, bounding the stack depth
+            if (lt - lo < hi - gt) {
+                sortBySlope(slopes, order, lo, lt - 1);
+                lo = gt + 1;
+            } else {
+                sortBySlope(slopes, order, gt + 1, hi);
+                hi = lt - 1;
             }
         }
 
-        foundSegments = new LineSegment[totalSegments];
-        for (int i = 0; i < totalSegments; i++) {
-            foundSegments[i] = tempSegments[i];
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && slopes[j] < slopes[j - 1]; j--) swap(slopes, order, j, j - 1);
         }
     }
 
+    private static double median(double a, double b, double c) {
+        if (a < b) return b < c ? b : (a < c ? c : a);
+        return a < c ? a : (b < c ? c : b);
+    }
+
+    private static void swap(double[] slopes, int[] order, int i, int j) {
+        double slope = slopes[i];
+        slopes[i] = slopes[j];
+        slopes[j] = slope;
+        int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+
     // returns the number of line segments
     public int numberOfSegments() {
         return foundSegments.length;
@@ -82,6 +185,7 @@ public final class FastCollinearPoints {
         return result;
     }
 
+    // usage: java FastCollinearPoints input.txt [threads]
     public static void main(String[] args) {
 
         // read the n points from a file
@@ -93,6 +197,7 @@ public final class FastCollinearPoints {
             int y = in.readInt();
             points[i] = new Point(x, y);
         }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
 
         // draw the points
         StdDraw.enableDoubleBuffering();
@@ -104,7 +209,7 @@ public final class FastCollinearPoints {
         StdDraw.show();
 
         // find and draw the line segments
-        FastCollinearPoints collinear = new FastCollinearPoints(points);
+        FastCollinearPoints collinear = new FastCollinearPoints(points, threads);
         for (LineSegment segment : collinear.segments()) {
             StdOut.println(segment);
             segment.draw();
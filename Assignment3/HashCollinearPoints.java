@@ -0,0 +1,196 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import edu.princeton.cs.algs4.StdDraw;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.In;
+
+/**
+ * Finds the same maximal segments of 4 or more collinear points as
+ * FastCollinearPoints, by hashing exact slopes instead of sorting by
+ * floating-point slope.
+ *
+ * For each origin p, every other point q gives the direction (dy, dx) = q - p,
+ * reduced by gcd(|dx|, |dy|) and sign-normalized so that dx > 0, or dx == 0
+ * and dy == 1. The reduced pair is packed into one long, so two points are on
+ * a line through p exactly when their keys are equal, with no floating-point
+ * comparison. Keys are grouped in a primitive open-addressing hash table that
+ * keeps, per key, the count and the first and last point in natural order.
+ * Expected time is O(n^2) hash operations (each with an O(log) gcd) instead of
+ * O(n^2 log n) comparisons.
+ *
+ * As in FastCollinearPoints, a segment is reported only from its smallest
+ * point, so each maximal segment is found exactly once. Segments come out in
+ * a different order.
+ *
+ * Coordinate differences must fit in an int, which holds for any points with
+ * coordinates in [0, 32767]; wider ranges are rejected.
+ */
+public final class HashCollinearPoints {
+
+    private final LineSegment[] foundSegments;
+
+    // finds all line segments containing 4 or more collinear points
+    public HashCollinearPoints(Point[] inputPoints) {
+        if (inputPoints == null) throw new IllegalArgumentException();
+        for (Point p : inputPoints)
+            if (p == null) throw new IllegalArgumentException();
+
+        int n = inputPoints.length;
+        Point[] sortedPoints = inputPoints.clone();
+        Arrays.sort(sortedPoints);
+
+        // check for duplicate points
+        for (int i = 0; i < n - 1; i++) {
+            if (sortedPoints[i].compareTo(sortedPoints[i + 1]) == 0)
+                throw new IllegalArgumentException();
+        }
+
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = sortedPoints[i].x();
+            ys[i] = sortedPoints[i].y();
+        }
+        checkRange(xs);
+        checkRange(ys);
+
+        SlopeTable table = new SlopeTable(n);
+        List<LineSegment> segments = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (j != i) table.add(slopeKey(xs[j] - xs[i], ys[j] - ys[i]), j);
+            }
+
+            // a line through the origin with 3+ other points, none smaller than the origin
+            for (int k = 0; k < table.used; k++) {
+                int slot = table.usedSlots[k];
+                if (table.counts[slot] >= 3 && table.first[slot] > i) {
+                    segments.add(new LineSegment(sortedPoints[i], sortedPoints[table.last[slot]]));
+                }
+            }
+            table.clear();
+        }
+
+        foundSegments = segments.toArray(new LineSegment[0]);
+    }
+
+    // returns the number of line segments
+    public int numberOfSegments() {
+        return foundSegments.length;
+    }
+
+    // returns the line segments
+    public LineSegment[] segments() {
+        return foundSegments.clone();
+    }
+
+    // Rejects coordinates whose differences would overflow an int
+    private static void checkRange(int[] coordinates) {
+        long min = Integer.MAX_VALUE;
+        long max = Integer.MIN_VALUE;
+        for (int c : coordinates) {
+            min = Math.min(min, c);
+            max = Math.max(max, c);
+        }
+        if (max - min > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Coordinate range too large for exact slope keys");
+    }
+
+    // Packs the direction (dx, dy), reduced and sign-normalized, into a long:
+    // dy in the high 32 bits and dx (>= 0) in the low 32 bits
+    static long slopeKey(int dx, int dy) {
+        if (dx == 0) return 1L << 32;  // vertical: (dy, dx) = (1, 0)
+        if (dy == 0) return 1L;        // horizontal: (0, 1)
+
+        int g = gcd(Math.abs(dx), Math.abs(dy));
+        dx /= g;
+        dy /= g;
+        if (dx < 0) {
+            dx = -dx;
+            dy = -dy;
+        }
+        return ((long) dy << 32) | dx;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // Open-addressing hash table from slope key to (count, first point, last point),
+    // with linear probing; it remembers its used slots so clearing costs only those
+    private static final class SlopeTable {
+        private final long[] keys;
+        private final int[] counts;   // 0 marks an empty slot
+        private final int[] first;
+        private final int[] last;
+        private final int[] usedSlots;
+        private final int mask;
+        private int used;
+
+        SlopeTable(int n) {
+            int capacity = Integer.highestOneBit(Math.max(4, 2 * n - 1)) << 1; // load factor <= 1/2
+            keys = new long[capacity];
+            counts = new int[capacity];
+            first = new int[capacity];
+            last = new int[capacity];
+            usedSlots = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        // Records point j (points arrive in natural order) under the given key
+        void add(long key, int j) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+            while (counts[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+
+            if (counts[slot] == 0) {
+                keys[slot] = key;
+                first[slot] = j;
+                usedSlots[used++] = slot;
+            }
+            counts[slot]++;
+            last[slot] = j;
+        }
+
+        void clear() {
+            for (int k = 0; k < used; k++) counts[usedSlots[k]] = 0;
+            used = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+
+        // read the n points from a file
+        In in = new In(args[0]);
+        int n = in.readInt();
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+
+        // draw the points
+        StdDraw.enableDoubleBuffering();
+        StdDraw.setXscale(0, 32768);
+        StdDraw.setYscale(0, 32768);
+        for (Point p : points) {
+            p.draw();
+        }
+        StdDraw.show();
+
+        // find and draw the line segments
+        HashCollinearPoints collinear = new HashCollinearPoints(points);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+            segment.draw();
+        }
+        StdDraw.show();
+    }
+}
@@ -15,6 +15,15 @@ public class Point implements Comparable<Point> {
         this.y = y;
     }
 
+    // Coordinates, for the primitive collinear engines in this package
+    int x() {
+        return x;
+    }
+
+    int y() {
+        return y;
+    }
+
     /**
      * Draws this point using standard draw.
      */
@@ -54,10 +63,16 @@ public class Point implements Comparable<Point> {
      * - (y1 - y0) / (x1 - x0) for general case
      */
     public double slopeTo(Point that) {
-        if (this.x == that.x && this.y == that.y) return Double.NEGATIVE_INFINITY; // degenerate
-        if (this.x == that.x) return Double.POSITIVE_INFINITY; // vertical
-        if (this.y == that.y) return 0.0; // horizontal
-        return (double) (that.y - this.y) / (that.x - this.x); // slope
+        return slope(this.x, this.y, that.x, that.y);
+    }
+
+    // Slope from (x0, y0) to (x1, y1) as defined by slopeTo, for the primitive
+    // collinear engines that keep coordinates in int arrays
+    static double slope(int x0, int y0, int x1, int y1) {
+        if (x0 == x1 && y0 == y1) return Double.NEGATIVE_INFINITY; // degenerate
+        if (x0 == x1) return Double.POSITIVE_INFINITY; // vertical
+        if (y0 == y1) return 0.0; // horizontal
+        return (double) (y1 - y0) / (x1 - x0); // slope
     }
 
     /**